@@ -0,0 +1,22 @@
+package solver.ls;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to read an instance file and build its distance matrix.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstanceLoadBenchmark {
+
+    @Benchmark
+    public VRPInstance load(InstanceState state) throws IOException {
+        return new VRPInstance(state.instanceFile, state.instance.watch, state.instance.options.distanceMatrixType);
+    }
+}
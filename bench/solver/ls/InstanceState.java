@@ -0,0 +1,50 @@
+package solver.ls;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * An instance (and a feasible solution to it, built by the default construction heuristic) shared by the
+ * benchmarks. Every benchmark runs once per instance in input/ (narrow this down with -p instanceFile=...).
+ * The solver's console output is discarded while the benchmarks run.
+ */
+@State(Scope.Thread)
+public class InstanceState {
+
+    @Param({"input/101_11_2.vrp", "input/101_8_1.vrp", "input/121_7_1.vrp", "input/135_7_1.vrp", "input/151_15_1.vrp",
+            "input/16_5_1.vrp", "input/200_16_2.vrp", "input/21_4_1.vrp", "input/241_22_1.vrp", "input/262_25_1.vrp",
+            "input/30_4_1.vrp", "input/386_47_1.vrp", "input/41_14_1.vrp", "input/45_4_1.vrp", "input/51_5_1.vrp",
+            "input/76_8_2.vrp"})
+    public String instanceFile;
+
+    // size of the granular neighbor lists (see SolverOptions.numNeighbors)
+    @Param({"0"})
+    public int numNeighbors;
+
+    public VRPLocalSearch instance;
+    public Solution solution;
+
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        SolverOptions options = new SolverOptions();
+        options.numNeighbors = numNeighbors;
+        Timer watch = new Timer();
+        watch.start();
+        instance = new VRPLocalSearch(instanceFile, watch, options);
+        solution = instance.constructInitialSolution();
+        if (solution == null)
+            throw new IllegalStateException("couldn't construct a solution for " + instanceFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+}
@@ -0,0 +1,62 @@
+package solver.ls;
+
+import org.openjdk.jmh.annotations.*;
+import solver.ls.MovingStrategy.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of proposing (and evaluating) a single move with each moving strategy. proposeMove is what the search calls;
+ * getSingleNeighbor also applies the move to a copy of the solution.
+ * The solution isn't modified, so every call sees the same solution.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MovingStrategyBenchmark {
+
+    @Param({"TwoOpt", "CrossRouteCustomerMove", "RandomCustomerMovement", "CrossRouteCustomerExchange",
+            "TwoOptStar", "CrossExchange"})
+    public String strategyName;
+
+    private MovingStrategy strategy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (strategyName) {
+            case "TwoOpt":
+                strategy = new TwoOpt();
+                break;
+            case "CrossRouteCustomerMove":
+                strategy = new CrossRouteCustomerMove();
+                break;
+            case "RandomCustomerMovement":
+                strategy = new RandomCustomerMovement();
+                break;
+            case "CrossRouteCustomerExchange":
+                strategy = new CrossRouteCustomerExchange();
+                break;
+            case "TwoOptStar":
+                strategy = new TwoOptStar();
+                break;
+            case "CrossExchange":
+                strategy = new CrossExchange();
+                break;
+            default:
+                throw new IllegalArgumentException("unknown moving strategy " + strategyName);
+        }
+    }
+
+    @Benchmark
+    public Move proposeMove(InstanceState state) {
+        return strategy.proposeMove(state.solution, state.instance);
+    }
+
+    @Benchmark
+    public Solution getSingleNeighbor(InstanceState state) {
+        return strategy.getSingleNeighbor(state.solution, state.instance);
+    }
+}
@@ -0,0 +1,57 @@
+package solver.ls;
+
+import org.openjdk.jmh.annotations.*;
+import solver.ls.MovingStrategy.Move;
+import solver.ls.MovingStrategy.MovingStrategy;
+import solver.ls.MovingStrategy.TwoOpt;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the route checks the moving strategies rely on (cycling through the routes of the solution), and of
+ * recomputing a solution's total distance from scratch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RouteEvaluationBenchmark {
+
+    private final MovingStrategy strategy = new TwoOpt();
+    private Solution neighbor; // the solution after a feasible move
+    private int routeIdx = 0;
+
+    @Setup(Level.Trial)
+    public void setUp(InstanceState state) {
+        neighbor = state.solution.copy();
+        for (int attempt = 0; attempt < 1000; attempt++) {
+            Move move = strategy.proposeMove(state.solution, state.instance);
+            if (move != null && move.isFeasible) {
+                move.apply(neighbor, state.instance);
+                break;
+            }
+        }
+    }
+
+    private int nextRoute(InstanceState state) {
+        routeIdx = routeIdx + 1 == state.solution.numRoutes() ? 0 : routeIdx + 1;
+        return routeIdx;
+    }
+
+    @Benchmark
+    public boolean isRouteFeasible(InstanceState state) {
+        return strategy.isRouteFeasible(state.solution, nextRoute(state), state.instance);
+    }
+
+    @Benchmark
+    public double routeDistanceChange(InstanceState state) {
+        return strategy.routeDistanceChange(state.solution, neighbor, nextRoute(state), state.instance);
+    }
+
+    @Benchmark
+    public double solutionTotalDistance(InstanceState state) {
+        return state.instance.solutionTotalDistance(state.solution);
+    }
+}
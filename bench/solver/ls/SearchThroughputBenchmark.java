@@ -0,0 +1,91 @@
+package solver.ls;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search iterations per second: each operation is one iteration of a search trajectory (ruining and recreating part
+ * of the solution, or evaluating a neighborhood and applying its best move, and keeping the result if it's accepted),
+ * exactly as VRPLocalSearch.localSearch() runs them. The trajectory
+ * keeps searching across the whole trial, starting from the constructed solution.
+ * Alongside the throughput, the bytes allocated by the search thread and the number of garbage collections are
+ * counted for each iteration: once the search has warmed up, both should stay at (or very near) 0.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchThroughputBenchmark {
+
+    // what each iteration does (see SolverOptions.ruinAndRecreate)
+    @Param({"ruin-recreate", "moves"})
+    public String search;
+
+    // number of threads evaluating each neighborhood in the moves search (see SolverOptions.neighborhoodThreads)
+    @Param({"1"})
+    public int neighborhoodThreads;
+
+    private SearchTrajectory trajectory;
+
+    /**
+     * Bytes allocated by the benchmark thread, and garbage collections (by any thread), during each iteration
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class AllocationCounters {
+
+        private static final com.sun.management.ThreadMXBean THREADS =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        public long allocatedBytes;
+        public long garbageCollections;
+
+        private long startAllocatedBytes;
+        private long startGarbageCollections;
+
+        @Setup(Level.Iteration)
+        public void start() {
+            allocatedBytes = 0;
+            garbageCollections = 0;
+            startAllocatedBytes = THREADS.getCurrentThreadAllocatedBytes();
+            startGarbageCollections = countGarbageCollections();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop() {
+            allocatedBytes = THREADS.getCurrentThreadAllocatedBytes() - startAllocatedBytes;
+            garbageCollections = countGarbageCollections() - startGarbageCollections;
+        }
+
+        private static long countGarbageCollections() {
+            long collections = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                collections += Math.max(0, collector.getCollectionCount()); // -1 if the collector doesn't count them
+            }
+            return collections;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(InstanceState state) {
+        state.instance.options.ruinAndRecreate = search.equals("ruin-recreate");
+        state.instance.options.neighborhoodThreads = neighborhoodThreads;
+        trajectory = new SearchTrajectory(state.instance, new SharedIncumbent(state.solution), 0, state.solution);
+        trajectory.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        trajectory.stop();
+    }
+
+    @Benchmark
+    public void step(AllocationCounters counters) {
+        trajectory.step();
+    }
+}
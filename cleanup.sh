@@ -5,4 +5,7 @@
 ########################################
 
 # Used to remove .class files generated by the compile script
-find src -type f -name "*.class" -delete
\ No newline at end of file
+find src -type f -name "*.class" -delete
+
+# Used to remove the benchmarks compiled by the compileBench script
+rm -rf bench/build
@@ -5,4 +5,24 @@
 ########################################
 
 # Update this file with instructions on how to compile your code
-javac -classpath /local/projects/cplex/CPLEX_Studio2211/cpoptimizer/lib/ILOG.CP.jar ./src/solver/ls/*.java ./src/solver/ls/MovingStrategy/*.java
+SOURCES="./src/solver/ls/*.java ./src/solver/ls/MovingStrategy/*.java ./src/solver/ls/DistanceMatrix/*.java ./src/solver/ls/ConstructionHeuristic/*.java ./src/solver/ls/RuinAndRecreate/*.java"
+
+# The Vector API (an incubator module) is optional: without it, the vectorized distance kernel isn't compiled (and
+# the solver computes distances with the scalar one)
+if java --list-modules 2>/dev/null | grep -q '^jdk.incubator.vector@'
+then
+	VECTOR_API="--add-modules jdk.incubator.vector"
+	SOURCES=$(ls $SOURCES)
+else
+	VECTOR_API=""
+	SOURCES=$(ls $SOURCES | grep -v VectorDistanceKernel.java)
+fi
+
+# CP Optimizer is optional: without it, everything but the CP construction heuristic is compiled
+CP_JAR=/local/projects/cplex/CPLEX_Studio2211/cpoptimizer/lib/ILOG.CP.jar
+if [ -f "$CP_JAR" ]
+then
+	javac $VECTOR_API -classpath $CP_JAR $SOURCES
+else
+	javac $VECTOR_API $(echo "$SOURCES" | grep -v CPConstruction.java)
+fi
@@ -0,0 +1,26 @@
+#!/bin/bash
+
+########################################
+############# CSCI 2951-O ##############
+########################################
+
+# Compiles the JMH benchmarks in bench/ (along with the solver) into bench/build
+# JMH_LIB should be a directory containing the jmh-core, jmh-generator-annprocess, jopt-simple and commons-math3 jars
+JMH_LIB=${JMH_LIB:-./lib/jmh}
+SOURCES="./src/solver/ls/*.java ./src/solver/ls/MovingStrategy/*.java ./src/solver/ls/DistanceMatrix/*.java ./src/solver/ls/ConstructionHeuristic/*.java ./src/solver/ls/RuinAndRecreate/*.java"
+
+# The Vector API (an incubator module) is optional: without it, the vectorized distance kernel isn't compiled (and
+# the solver computes distances with the scalar one)
+if java --list-modules 2>/dev/null | grep -q '^jdk.incubator.vector@'
+then
+	VECTOR_API="--add-modules jdk.incubator.vector"
+	SOURCES=$(ls $SOURCES)
+else
+	VECTOR_API=""
+	SOURCES=$(ls $SOURCES | grep -v VectorDistanceKernel.java)
+fi
+
+rm -rf bench/build
+mkdir -p bench/build
+# the CP construction isn't benchmarked, so CP Optimizer isn't needed
+javac $VECTOR_API -classpath "$JMH_LIB/*" -d bench/build $(echo "$SOURCES" | grep -v CPConstruction.java) ./bench/solver/ls/*.java
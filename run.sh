@@ -4,13 +4,14 @@
 ############# CSCI 2951-O ##############
 ########################################
 E_BADARGS=65
-if [ $# -ne 1 ]
+if [ $# -lt 1 ]
 then
-	echo "Usage: `basename $0` <input>"
+	echo "Usage: `basename $0` <input> [options]"
 	exit $E_BADARGS
 fi
 	
 input=$1
+shift
 
 # export the ilog license to run the solver
 export ILOG_LICENSE_FILE=/local/projects/cplex/ilm/current/linux/access.site.ilm
@@ -18,4 +19,7 @@ export ILOG_LICENSE_FILE=/local/projects/cplex/ilm/current/linux/access.site.ilm
 # export the solver libraries into the path
 export LD_LIBRARY_PATH=$LD_LIBRARY_PATH:/local/projects/cplex/CPLEX_Studio2211/cpoptimizer/bin/x86-64_linux:/local/projects/cplex/CPLEX_Studio2211/cplex/bin/x86-64_linux
 
-java -cp /local/projects/cplex/CPLEX_Studio2211/cpoptimizer/lib/ILOG.CP.jar:src solver.ls.Main $input
\ No newline at end of file
+# use the Vector API (an incubator module) to compute distances, if the JVM has it
+VECTOR_API=$(java --list-modules 2>/dev/null | grep -q '^jdk.incubator.vector@' && echo "--add-modules jdk.incubator.vector")
+
+java $VECTOR_API -cp /local/projects/cplex/CPLEX_Studio2211/cpoptimizer/lib/ILOG.CP.jar:src solver.ls.Main $input "$@"
\ No newline at end of file
@@ -0,0 +1,33 @@
+#!/bin/bash
+
+########################################
+############# CSCI 2951-O ##############
+########################################
+E_BADARGS=65
+if [ $# -lt 3 ]
+then
+	echo "Usage: `basename $0` <inputFolder/ | manifestFile> <timeLimit> <logFile> [--jobs <n>] [options]"
+	echo "Description:"
+	echo -e "\t This script solves all the .vrp files in the given inputFolder/ (or listed in the given manifestFile) in a single JVM."
+	echo -e "\t Up to n instances (1 by default) are solved at the same time, each searching for the given time limit in seconds."
+	echo -e "\t Each result is appended to the given logFile as soon as its instance is solved."
+	echo -e "\t If a run fails, the file name is appended to the logFile with --'s as time and result. "
+	echo -e "\t If the logFile already exists, the run is aborted."
+	exit $E_BADARGS
+fi
+
+input=$1
+timeLimit=$2
+logFile=$3
+shift 3
+
+# export the ilog license to run the solver
+export ILOG_LICENSE_FILE=/local/projects/cplex/ilm/current/linux/access.site.ilm
+
+# export the solver libraries into the path
+export LD_LIBRARY_PATH=$LD_LIBRARY_PATH:/local/projects/cplex/CPLEX_Studio2211/cpoptimizer/bin/x86-64_linux:/local/projects/cplex/CPLEX_Studio2211/cplex/bin/x86-64_linux
+
+# use the Vector API (an incubator module) to compute distances, if the JVM has it
+VECTOR_API=$(java --list-modules 2>/dev/null | grep -q '^jdk.incubator.vector@' && echo "--add-modules jdk.incubator.vector")
+
+java $VECTOR_API -cp /local/projects/cplex/CPLEX_Studio2211/cpoptimizer/lib/ILOG.CP.jar:src solver.ls.BatchSolver $input $logFile --time-limit $timeLimit "$@"
@@ -0,0 +1,16 @@
+#!/bin/bash
+
+########################################
+############# CSCI 2951-O ##############
+########################################
+
+# Runs the JMH benchmarks compiled by compileBench.sh (run it from the repository root, since the benchmarks read
+# the instances in input/). Any arguments are passed on to JMH, for example:
+#   ./runBench.sh MovingStrategyBenchmark -p instanceFile=input/386_47_1.vrp -prof gc
+JMH_LIB=${JMH_LIB:-./lib/jmh}
+
+# use the Vector API (an incubator module) to compute distances, if the JVM has it (the benchmark JVMs JMH forks
+# get the same option)
+VECTOR_API=$(java --list-modules 2>/dev/null | grep -q '^jdk.incubator.vector@' && echo "--add-modules jdk.incubator.vector")
+
+java $VECTOR_API -cp "bench/build:$JMH_LIB/*" org.openjdk.jmh.Main "$@"
@@ -0,0 +1,233 @@
+package solver.ls;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Batch mode: solves many instances within a single JVM (so JVM startup and JIT warm-up are only paid once, rather
+ * than once per instance as with runAll.sh). The instances are solved concurrently on a bounded pool of threads,
+ * each with its own time limit, and each instance's result is appended to the log file as soon as it is solved.
+ */
+public class BatchSolver {
+
+    // seconds past its time limit after which a solve that is still running is interrupted (and returns the best
+    // solution found so far)
+    private static final double GRACE_PERIOD = 5.0;
+
+    public static final String USAGE = String.join("\n",
+            "Usage: java solver.ls.BatchSolver <input-folder | manifest-file> <log-file> [--jobs <n>] [options]",
+            "  <input-folder>               solve every .vrp file in this directory",
+            "  <manifest-file>              solve every instance file listed in this file (one path per line, relative",
+            "                               to the manifest's directory; blank lines and lines starting with # are skipped)",
+            "  --jobs <n>                   number of instances solved at the same time (default 1)",
+            "The other options apply to every instance (see below). With --telemetry (or --stream to a file), each",
+            "instance's telemetry (or solutions) are written to their own file, named after the instance.");
+
+    private final List<Path> instanceFiles;
+    private final Path logFile;
+    private final int numJobs;
+    private final String[] optionArgs;
+
+    private final ScheduledExecutorService watchdogExecutor;
+
+    public BatchSolver(List<Path> instanceFiles, Path logFile, int numJobs, String[] optionArgs) {
+        this.instanceFiles = instanceFiles;
+        this.logFile = logFile;
+        this.numJobs = numJobs;
+        this.optionArgs = optionArgs;
+        this.watchdogExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batch-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println(USAGE);
+            System.out.println(SolverOptions.USAGE);
+            return;
+        }
+
+        Path input = Paths.get(args[0]);
+        Path logFile = Paths.get(args[1]);
+        int numJobs = 1;
+        List<String> optionArgs = new ArrayList<>();
+        List<Path> instanceFiles;
+        try {
+            for (int i = 2; i < args.length; i++) {
+                if (args[i].equals("--jobs") && i + 1 < args.length)
+                    numJobs = parseJobs(args[++i]);
+                else
+                    optionArgs.add(args[i]);
+            }
+            // report malformed options (and options that have no effect) before solving anything
+            String notice = SolverOptions.parse(optionArgs.toArray(new String[0]), 0).ignoredOptionsNotice();
+            if (notice != null)
+                System.out.println(notice);
+            instanceFiles = findInstanceFiles(input);
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.out.println(USAGE);
+            System.exit(1);
+            return;
+        }
+        if (Files.exists(logFile)) {
+            System.out.println("Error: log file " + logFile + " already exists");
+            System.exit(1);
+            return;
+        }
+
+        try {
+            new BatchSolver(instanceFiles, logFile, numJobs, optionArgs.toArray(new String[0])).run();
+        } catch (IOException e) {
+            System.out.println("Error: couldn't write to log file " + logFile + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static int parseJobs(String value) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0)
+                return parsed;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("expected a positive integer for option --jobs, got " + value);
+    }
+
+    /**
+     * @return the .vrp files in the directory (in name order), or the files listed in the manifest (in listed order)
+     */
+    static List<Path> findInstanceFiles(Path input) throws IOException {
+        if (Files.isDirectory(input)) {
+            try (Stream<Path> files = Files.list(input)) {
+                return files.filter(file -> file.getFileName().toString().endsWith(".vrp") && Files.isRegularFile(file))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+
+        Path directory = input.toAbsolutePath().getParent();
+        List<Path> instanceFiles = new ArrayList<>();
+        for (String line : Files.readAllLines(input, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            instanceFiles.add(directory.resolve(line));
+        }
+        return instanceFiles;
+    }
+
+    /**
+     * Solves every instance, appending each result line to the log file (in the order the solves finish)
+     */
+    public void run() throws IOException {
+        ExecutorService solveExecutor = Executors.newFixedThreadPool(numJobs, runnable -> {
+            Thread thread = new Thread(runnable, "batch-solve");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<String> results = new ExecutorCompletionService<>(solveExecutor);
+        try (BufferedWriter log = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            for (Path instanceFile : instanceFiles) {
+                results.submit(() -> solve(instanceFile));
+            }
+            for (int i = 0; i < instanceFiles.size(); i++) {
+                String resultLine;
+                try {
+                    resultLine = results.take().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Error: batch solve failed", e.getCause());
+                }
+                log.write(resultLine);
+                log.newLine();
+                log.flush();
+            }
+        } finally {
+            solveExecutor.shutdownNow();
+            watchdogExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Solves a single instance (on the calling thread), with its own options and clock
+     *
+     * @return the instance's line for the results log
+     */
+    private String solve(Path instanceFile) {
+        String filename = instanceFile.getFileName().toString();
+        System.out.println("Instance: " + instanceFile);
+        SolverOptions options = SolverOptions.parse(optionArgs, 0);
+        if (options.telemetryFile != null)
+            options.telemetryFile = instanceFileFor(options.telemetryFile, filename);
+        if (options.streamFile != null && !options.streamFile.equals(IncumbentStreamWriter.STANDARD_OUTPUT))
+            options.streamFile = instanceFileFor(options.streamFile, filename);
+
+        // if the solve overruns its time limit (e.g. while constructing the initial solution), interrupt it
+        Thread solveThread = Thread.currentThread();
+        Object solveLock = new Object();
+        boolean[] finished = {false};
+        ScheduledFuture<?> watchdog = watchdogExecutor.schedule(() -> {
+            synchronized (solveLock) {
+                if (!finished[0])
+                    solveThread.interrupt();
+            }
+        }, (long) ((options.timeLimit + GRACE_PERIOD) * 1000), TimeUnit.MILLISECONDS);
+
+        Timer watch = new Timer();
+        watch.start();
+        try {
+            VRPLocalSearch solver = new VRPLocalSearch(instanceFile.toString(), watch, options);
+            Solution solution = solver.localSearch();
+            watch.stop();
+            if (solution == null)
+                return Main.failureLine(filename);
+            String resultLine = Main.resultLine(filename, watch.getTime(), solver.solutionTotalDistance(solution), solution);
+            System.out.println(resultLine);
+            return resultLine;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error: couldn't solve " + instanceFile + ": " + e.getMessage());
+            return Main.failureLine(filename);
+        } finally {
+            watchdog.cancel(false);
+            synchronized (solveLock) {
+                finished[0] = true;
+            }
+            Thread.interrupted(); // so an interrupt meant for this solve doesn't cut the thread's next solve short
+        }
+    }
+
+    // e.g. telemetry/batch.json becomes telemetry/batch-16_5_1.json for the instance 16_5_1.vrp
+    private static String instanceFileFor(String file, String instanceFilename) {
+        String instanceName = instanceFilename.endsWith(".vrp")
+                ? instanceFilename.substring(0, instanceFilename.length() - ".vrp".length())
+                : instanceFilename;
+        int extensionIdx = file.lastIndexOf('.');
+        if (extensionIdx <= file.lastIndexOf('/') + 1)
+            return file + "-" + instanceName;
+        return file.substring(0, extensionIdx) + "-" + instanceName + file.substring(extensionIdx);
+    }
+}
@@ -1,5 +1,7 @@
 package solver.ls;
 
+import solver.ls.DistanceMatrix.DistanceKernel;
+
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.util.ArrayList;
@@ -11,7 +13,7 @@ public class Checker {
     public static void check(VRPInstance instance, Solution solution, double computedDistance) {
         // feasibility check
         // 1. no capacity constraint is violated
-        for (List<Integer> route : solution.routes) {
+        for (List<Integer> route : solution.getRoutes()) {
             int demandServed = 0;
             for (int customer : route) {
                 demandServed += instance.demandOfCustomer[customer];
@@ -25,7 +27,7 @@ public class Checker {
 
         // 2. every customer is seen exactly once (ignore warehouse for this)
         Set<Integer> seenCustomers = new HashSet<>();
-        for (List<Integer> route : solution.routes) {
+        for (List<Integer> route : solution.getRoutes()) {
             for (int customer : route) {
                 if (customer == 0)
                     continue;
@@ -40,7 +42,7 @@ public class Checker {
         }
 
         // 3. every route begins and ends in warehouse (and has at least 2 customers)
-        for (List<Integer> route : solution.routes) {
+        for (List<Integer> route : solution.getRoutes()) {
             if (route.size() < 2) {
                 System.out.println("failed -- route has less than 2 customers");
                 System.exit(-1);
@@ -55,22 +57,17 @@ public class Checker {
 
         // distance check
         // total distance of the solution string matches the given total distance in the log file
+        // (straight from the coordinates, rather than the instance's distance matrix)
         double totalDistance = 0;
-        for (List<Integer> route : solution.routes) {
-            if (route.size() == 2)
+        double[] arcLengths = new double[solution.tour.length];
+        for (int r = 0; r < solution.numRoutes(); r++) {
+            if (solution.routeSize(r) == 2)
                 continue;
 
-            for (int i = 1; i < route.size(); i++) {
-                int previousCustomer = route.get(i - 1);
-                int currCustomer = route.get(i);
-
-                double prevX = instance.xCoordOfCustomer[previousCustomer];
-                double prevY = instance.yCoordOfCustomer[previousCustomer];
-
-                double currX = instance.xCoordOfCustomer[currCustomer];
-                double currY = instance.yCoordOfCustomer[currCustomer];
-
-                totalDistance += Math.sqrt(Math.pow(currX - prevX, 2) + Math.pow(currY - prevY, 2));
+            DistanceKernel.INSTANCE.arcLengths(instance.xCoordOfCustomer, instance.yCoordOfCustomer,
+                    solution.tour, solution.routeStart[r], solution.routeStart[r + 1], arcLengths);
+            for (int k = 0; k < solution.routeSize(r) - 1; k++) {
+                totalDistance += arcLengths[k];
             }
         }
 
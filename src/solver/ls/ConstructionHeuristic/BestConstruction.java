@@ -0,0 +1,35 @@
+package solver.ls.ConstructionHeuristic;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+import java.util.List;
+
+/**
+ * Runs several heuristics and keeps the shortest of their solutions. The fallback (if there is one) only runs if
+ * none of the heuristics managed to fit the customers into the fleet.
+ */
+public class BestConstruction implements ConstructionHeuristic {
+
+    private final List<ConstructionHeuristic> heuristics;
+    private final ConstructionHeuristic fallback; // null if there is no fallback
+
+    public BestConstruction(List<ConstructionHeuristic> heuristics, ConstructionHeuristic fallback) {
+        this.heuristics = heuristics;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Solution construct(VRPInstance instance) {
+        Solution bestSolution = null;
+        for (ConstructionHeuristic heuristic : heuristics) {
+            Solution solution = heuristic.construct(instance);
+            if (solution != null && (bestSolution == null || solution.totalDistance < bestSolution.totalDistance))
+                bestSolution = solution;
+        }
+
+        if (bestSolution == null && fallback != null)
+            return fallback.construct(instance);
+        return bestSolution;
+    }
+}
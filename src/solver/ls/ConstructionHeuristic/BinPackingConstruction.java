@@ -0,0 +1,50 @@
+package solver.ls.ConstructionHeuristic;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Best-fit-decreasing bin packing: customers are assigned (largest demand first) to the route with the least room
+ * left that still fits them, and each route then visits its customers in nearest neighbor order. This ignores
+ * distances while packing, but it's the heuristic most likely to fit tightly-constrained instances into the fleet.
+ */
+public class BinPackingConstruction implements ConstructionHeuristic {
+
+    @Override
+    public Solution construct(VRPInstance instance) {
+        List<Integer> customers = new ArrayList<>(instance.getNumCustomers() - 1);
+        for (int customer = 1; customer < instance.getNumCustomers(); customer++) {
+            customers.add(customer);
+        }
+        customers.sort(Comparator.comparingInt((Integer customer) -> instance.demandOfCustomer[customer]).reversed());
+
+        int numVehicles = instance.getNumVehicles();
+        int[] loads = new int[numVehicles];
+        List<List<Integer>> routes = new ArrayList<>(numVehicles);
+        for (int r = 0; r < numVehicles; r++) {
+            routes.add(new ArrayList<>());
+        }
+
+        for (int customer : customers) {
+            int demand = instance.demandOfCustomer[customer];
+            int bestRoute = -1;
+            for (int r = 0; r < numVehicles; r++) {
+                if (loads[r] + demand <= instance.getVehicleCapacity() && (bestRoute == -1 || loads[r] > loads[bestRoute]))
+                    bestRoute = r;
+            }
+            if (bestRoute == -1)
+                return null;
+            routes.get(bestRoute).add(customer);
+            loads[bestRoute] += demand;
+        }
+
+        for (int r = 0; r < numVehicles; r++) {
+            routes.set(r, ConstructionHeuristic.nearestNeighborOrder(routes.get(r), instance));
+        }
+        return ConstructionHeuristic.toSolution(routes, instance);
+    }
+}
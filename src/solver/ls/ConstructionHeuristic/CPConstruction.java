@@ -0,0 +1,78 @@
+package solver.ls.ConstructionHeuristic;
+
+import ilog.concert.IloException;
+import ilog.cp.*;
+import ilog.concert.*;
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Uses CP Optimizer to assign customers to vehicles (a bin-packing model: every customer is served by exactly one
+ * vehicle, and no vehicle exceeds its capacity). Each route visits its customers in order of their index.
+ * This is the only class that depends on CP Optimizer: it's loaded reflectively (see
+ * ConstructionHeuristic.loadCPConstruction()), and the solver compiles without it if CP Optimizer isn't installed.
+ */
+public class CPConstruction implements ConstructionHeuristic {
+
+    IloCP cp;
+    IloIntVar[][] customersServed; // (numVehicles, numCustomers - 1) --> (i, j): if vehicle i serves customer j
+
+    private Solution constructSolutionFromCPVars(VRPInstance instance) {
+        List<List<Integer>> routes = new ArrayList<>();
+        for (int i = 0; i < instance.getNumVehicles(); i++) {
+            List<Integer> vehicleRoute = new ArrayList<>();
+            for (int j = 1; j < instance.getNumCustomers(); j++) {
+                int isCustomerServed = (int) cp.getValue(customersServed[i][j]);
+                if (isCustomerServed == 1) {
+                    vehicleRoute.add(j);
+                }
+            }
+            routes.add(vehicleRoute);
+        }
+        return ConstructionHeuristic.toSolution(routes, instance);
+    }
+
+    @Override
+    public Solution construct(VRPInstance instance) {
+        int numVehicles = instance.getNumVehicles();
+        int numCustomers = instance.getNumCustomers();
+        try {
+            cp = new IloCP();
+
+            // routes array
+            customersServed = new IloIntVar[numVehicles][numCustomers];
+            for (int i = 0; i < numVehicles; i++) {
+                customersServed[i] = cp.intVarArray(numCustomers, 0, 1);
+            }
+
+            // every column should sum to 1 -- each customer is visited exactly once
+            for (int j = 1; j < numCustomers; j++) {
+                IloNumExpr sum = cp.constant(0);
+                for (int i = 0; i < numVehicles; i++) {
+                    sum = cp.sum(sum, customersServed[i][j]);
+                }
+
+                cp.addEq(sum, 1);
+            }
+
+            // no vehicle exceeds its capacity
+            for (int i = 0; i < numVehicles; i++) {
+                cp.addLe(cp.scalProd(customersServed[i], instance.demandOfCustomer), instance.getVehicleCapacity());
+            }
+
+            if (cp.solve()) {
+                return constructSolutionFromCPVars(instance);
+            } else {
+                System.out.println("Problem is infeasible!");
+                return null;
+            }
+
+        } catch (IloException e) {
+            System.out.println("Error: " + e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package solver.ls.ConstructionHeuristic;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds the initial (feasible) solution that local search starts from. The native heuristics only need the
+ * instance itself; the CP heuristic needs CP Optimizer (ILOG.CP.jar) and is only available when it's installed.
+ */
+public interface ConstructionHeuristic {
+
+    enum Type {
+        SAVINGS,     // Clarke-Wright savings: merges routes whose merge saves the most distance
+        SWEEP,       // fills routes with customers in order of their angle around the depot
+        BIN_PACKING, // best-fit-decreasing on the demands, then visits each route's customers nearest neighbor first
+        CP,          // CP Optimizer bin-packing model (needs ILOG.CP.jar)
+        AUTO         // the shortest of the native heuristics' solutions, falling back to CP if none of them fit the fleet
+    }
+
+    String CP_CONSTRUCTION_CLASS = "solver.ls.ConstructionHeuristic.CPConstruction";
+
+    /**
+     * @return a feasible solution (with one route per vehicle, and its total distance computed), or null if the
+     * heuristic couldn't fit the customers into the available vehicles
+     */
+    Solution construct(VRPInstance instance);
+
+    /**
+     * @throws IllegalStateException if the CP heuristic is requested but CP Optimizer isn't available
+     */
+    static ConstructionHeuristic create(Type type) {
+        switch (type) {
+            case SAVINGS:
+                return new SavingsConstruction();
+            case SWEEP:
+                return new SweepConstruction();
+            case BIN_PACKING:
+                return new BinPackingConstruction();
+            case CP:
+                ConstructionHeuristic cp = loadCPConstruction();
+                if (cp == null)
+                    throw new IllegalStateException("the cp construction needs CP Optimizer (ILOG.CP.jar) on the classpath");
+                return cp;
+            default:
+                List<ConstructionHeuristic> heuristics = new ArrayList<>(List.of(
+                        new SavingsConstruction(),
+                        new SweepConstruction(),
+                        new BinPackingConstruction()
+                ));
+                return new BestConstruction(heuristics, loadCPConstruction());
+        }
+    }
+
+    /**
+     * The CP heuristic is loaded reflectively, so the rest of the solver compiles and runs without CP Optimizer
+     *
+     * @return the CP heuristic, or null if CP Optimizer (or the CP heuristic itself) isn't on the classpath
+     */
+    static ConstructionHeuristic loadCPConstruction() {
+        try {
+            Class.forName("ilog.cp.IloCP");
+            return (ConstructionHeuristic) Class.forName(CP_CONSTRUCTION_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reorders a route's customers greedily: starting from the depot, always visit the nearest unvisited customer next
+     */
+    static List<Integer> nearestNeighborOrder(List<Integer> customers, VRPInstance instance) {
+        List<Integer> remaining = new ArrayList<>(customers);
+        List<Integer> ordered = new ArrayList<>(customers.size());
+        int current = 0;
+        while (!remaining.isEmpty()) {
+            int nearestIdx = 0;
+            for (int i = 1; i < remaining.size(); i++) {
+                if (instance.distance.get(current, remaining.get(i)) < instance.distance.get(current, remaining.get(nearestIdx)))
+                    nearestIdx = i;
+            }
+            // swap-remove (the order of the remaining customers doesn't matter)
+            current = remaining.get(nearestIdx);
+            remaining.set(nearestIdx, remaining.get(remaining.size() - 1));
+            remaining.remove(remaining.size() - 1);
+            ordered.add(current);
+        }
+        return ordered;
+    }
+
+    /**
+     * Makes the routes fit the fleet: while there are more routes than vehicles, the route with the smallest load is
+     * dissolved and its customers (largest demand first) are inserted wherever it's cheapest among the routes that
+     * have room for them
+     *
+     * @param routes: the customers on each route (without the depot); modified in place
+     * @return whether the routes now fit the fleet
+     */
+    static boolean fitIntoFleet(List<List<Integer>> routes, VRPInstance instance) {
+        List<Integer> loads = new ArrayList<>(routes.size());
+        for (List<Integer> route : routes) {
+            int load = 0;
+            for (int customer : route) {
+                load += instance.demandOfCustomer[customer];
+            }
+            loads.add(load);
+        }
+
+        while (routes.size() > instance.getNumVehicles()) {
+            int smallestIdx = 0;
+            for (int r = 1; r < routes.size(); r++) {
+                if (loads.get(r) < loads.get(smallestIdx))
+                    smallestIdx = r;
+            }
+            List<Integer> dissolved = routes.remove(smallestIdx);
+            loads.remove(smallestIdx);
+            if (!insertCheapest(dissolved, routes, loads, instance))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Inserts customers (largest demand first) one at a time, each wherever it's cheapest among the routes that have
+     * room for it (or on a route of its own, if there are fewer routes than vehicles and that's cheaper)
+     *
+     * @param routes: the customers on each route (without the depot); modified in place
+     * @param loads: the load of each route; modified in place
+     * @return whether every customer was inserted
+     */
+    static boolean insertCheapest(List<Integer> customers, List<List<Integer>> routes, List<Integer> loads, VRPInstance instance) {
+        customers = new ArrayList<>(customers);
+        customers.sort(Comparator.comparingInt((Integer customer) -> instance.demandOfCustomer[customer]).reversed());
+
+        for (int customer : customers) {
+            int bestRoute = -1;
+            int bestPosition = -1;
+            double bestCost = Double.MAX_VALUE;
+            if (routes.size() < instance.getNumVehicles()) {
+                bestRoute = routes.size(); // a new route
+                bestPosition = 0;
+                bestCost = 2 * instance.distance.get(0, customer);
+            }
+            for (int r = 0; r < routes.size(); r++) {
+                if (loads.get(r) + instance.demandOfCustomer[customer] > instance.getVehicleCapacity())
+                    continue;
+                List<Integer> route = routes.get(r);
+                for (int position = 0; position <= route.size(); position++) {
+                    int before = position == 0 ? 0 : route.get(position - 1);
+                    int after = position == route.size() ? 0 : route.get(position);
+                    double cost = instance.distance.get(before, customer) + instance.distance.get(customer, after)
+                            - instance.distance.get(before, after);
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestRoute = r;
+                        bestPosition = position;
+                    }
+                }
+            }
+            if (bestRoute == -1)
+                return false;
+            if (bestRoute == routes.size()) {
+                routes.add(new ArrayList<>());
+                loads.add(0);
+            }
+            routes.get(bestRoute).add(bestPosition, customer);
+            loads.set(bestRoute, loads.get(bestRoute) + instance.demandOfCustomer[customer]);
+        }
+        return true;
+    }
+
+    /**
+     * @param routes: the customers on each route (without the depot); there must be at most one route per vehicle
+     * @return the solution with these routes (and an empty route for each remaining vehicle), its total distance computed
+     */
+    static Solution toSolution(List<List<Integer>> routes, VRPInstance instance) {
+        List<List<Integer>> solutionRoutes = new ArrayList<>(instance.getNumVehicles());
+        for (int r = 0; r < instance.getNumVehicles(); r++) {
+            List<Integer> route = new ArrayList<>();
+            route.add(0);
+            if (r < routes.size())
+                route.addAll(routes.get(r));
+            route.add(0);
+            solutionRoutes.add(route);
+        }
+
+        Solution solution = new Solution(solutionRoutes);
+        instance.solutionTotalDistance(solution);
+        solution.isFeasible = true;
+        return solution;
+    }
+}
@@ -0,0 +1,161 @@
+package solver.ls.ConstructionHeuristic;
+
+import solver.ls.NeighborLists;
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Clarke-Wright savings heuristic (parallel version). Every customer starts on its own route; then, in decreasing
+ * order of the saving d(0, i) + d(0, j) - d(i, j), the routes ending in customers i and j are joined by the arc
+ * (i, j) whenever the joined route fits in a vehicle. If that leaves more routes than vehicles, the smallest routes
+ * are dissolved into the others.
+ * Only pairs of nearby customers are considered (each customer paired with its nearest customers), which keeps the
+ * number of savings linear in the number of customers; on small instances this covers every pair.
+ */
+public class SavingsConstruction implements ConstructionHeuristic {
+
+    private static final int NUM_CANDIDATE_NEIGHBORS = 100;
+
+    // customers are doubly linked along their routes; NONE marks the depot at either end of a route
+    private static final int NONE = -1;
+
+    private int[] next;
+    private int[] prev;
+    private int[] routeOf;    // route id of each customer
+    private int[] routeHead;  // first customer of each route (indexed by route id)
+    private int[] routeTail;  // last customer of each route
+    private int[] routeLoad;
+    private int[] routeSize;
+
+    @Override
+    public Solution construct(VRPInstance instance) {
+        int numLocations = instance.getNumCustomers();
+        if (numLocations < 3)
+            return singleCustomerRoutes(instance);
+
+        for (int customer = 1; customer < numLocations; customer++) {
+            if (instance.demandOfCustomer[customer] > instance.getVehicleCapacity())
+                return null;
+        }
+
+        // every customer starts out on its own route, whose id is the customer itself
+        next = new int[numLocations];
+        prev = new int[numLocations];
+        routeOf = new int[numLocations];
+        routeHead = new int[numLocations];
+        routeTail = new int[numLocations];
+        routeLoad = new int[numLocations];
+        routeSize = new int[numLocations];
+        for (int customer = 1; customer < numLocations; customer++) {
+            next[customer] = NONE;
+            prev[customer] = NONE;
+            routeOf[customer] = customer;
+            routeHead[customer] = customer;
+            routeTail[customer] = customer;
+            routeLoad[customer] = instance.demandOfCustomer[customer];
+            routeSize[customer] = 1;
+        }
+
+        NeighborLists neighborLists = new NeighborLists(instance, NUM_CANDIDATE_NEIGHBORS);
+        int numSavings = (numLocations - 1) * neighborLists.numNeighbors();
+        int[] first = new int[numSavings];
+        int[] second = new int[numSavings];
+        double[] saving = new double[numSavings];
+        for (int customer = 1, s = 0; customer < numLocations; customer++) {
+            for (int rank = 0; rank < neighborLists.numNeighbors(); rank++, s++) {
+                int neighbor = neighborLists.get(customer, rank);
+                first[s] = customer;
+                second[s] = neighbor;
+                saving[s] = instance.distance.get(0, customer) + instance.distance.get(0, neighbor)
+                        - instance.distance.get(customer, neighbor);
+            }
+        }
+        Integer[] order = new Integer[numSavings];
+        for (int s = 0; s < numSavings; s++) {
+            order[s] = s;
+        }
+        Arrays.sort(order, (s1, s2) -> Double.compare(saving[s2], saving[s1]));
+
+        for (int s : order) {
+            merge(first[s], second[s], instance);
+        }
+
+        List<List<Integer>> routes = new ArrayList<>();
+        for (int customer = 1; customer < numLocations; customer++) {
+            if (routeOf[customer] != customer)
+                continue; // not a route id (a route keeps the id of one of its customers)
+            List<Integer> route = new ArrayList<>(routeSize[customer]);
+            for (int c = routeHead[customer]; c != NONE; c = next[c]) {
+                route.add(c);
+            }
+            routes.add(route);
+        }
+        if (!ConstructionHeuristic.fitIntoFleet(routes, instance))
+            return null;
+        return ConstructionHeuristic.toSolution(routes, instance);
+    }
+
+    /**
+     * Joins the routes of customers i and j with the arc (i, j), if they are on different routes, both are at an
+     * end of their route and the joined route fits in a vehicle
+     */
+    private void merge(int i, int j, VRPInstance instance) {
+        int routeI = routeOf[i];
+        int routeJ = routeOf[j];
+        if (routeI == routeJ || !isEndpoint(i) || !isEndpoint(j))
+            return;
+        if (routeLoad[routeI] + routeLoad[routeJ] > instance.getVehicleCapacity())
+            return;
+
+        // orient the routes so that i ends its route and j starts its route
+        if (routeTail[routeI] != i)
+            reverse(routeI);
+        if (routeHead[routeJ] != j)
+            reverse(routeJ);
+        next[i] = j;
+        prev[j] = i;
+
+        // relabel the customers of the smaller route (walking from its head, which stops where the other route starts)
+        int kept = routeSize[routeI] >= routeSize[routeJ] ? routeI : routeJ;
+        int dropped = kept == routeI ? routeJ : routeI;
+        for (int c = routeHead[dropped]; c != NONE && routeOf[c] == dropped; c = next[c]) {
+            routeOf[c] = kept;
+        }
+        routeHead[kept] = routeHead[routeI];
+        routeTail[kept] = routeTail[routeJ];
+        routeLoad[kept] = routeLoad[routeI] + routeLoad[routeJ];
+        routeSize[kept] = routeSize[routeI] + routeSize[routeJ];
+    }
+
+    private boolean isEndpoint(int customer) {
+        return prev[customer] == NONE || next[customer] == NONE;
+    }
+
+    private void reverse(int route) {
+        for (int c = routeHead[route]; c != NONE; c = prev[c]) {
+            int temp = next[c];
+            next[c] = prev[c];
+            prev[c] = temp;
+        }
+        int temp = routeHead[route];
+        routeHead[route] = routeTail[route];
+        routeTail[route] = temp;
+    }
+
+    // with a single customer there are no pairs to merge
+    private Solution singleCustomerRoutes(VRPInstance instance) {
+        List<List<Integer>> routes = new ArrayList<>();
+        for (int customer = 1; customer < instance.getNumCustomers(); customer++) {
+            if (instance.demandOfCustomer[customer] > instance.getVehicleCapacity())
+                return null;
+            routes.add(new ArrayList<>(List.of(customer)));
+        }
+        if (routes.size() > instance.getNumVehicles())
+            return null;
+        return ConstructionHeuristic.toSolution(routes, instance);
+    }
+}
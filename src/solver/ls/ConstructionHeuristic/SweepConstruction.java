@@ -0,0 +1,77 @@
+package solver.ls.ConstructionHeuristic;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sweep heuristic: customers are sorted by their angle around the depot, and a ray sweeping around the depot adds
+ * them to the current route until the next one doesn't fit (which starts a new route). Each route then visits its
+ * customers in nearest neighbor order. Several starting angles are tried, keeping the shortest solution.
+ */
+public class SweepConstruction implements ConstructionHeuristic {
+
+    private static final int MAX_START_ANGLES = 32;
+
+    @Override
+    public Solution construct(VRPInstance instance) {
+        int numCustomers = instance.getNumCustomers() - 1; // not counting the depot
+        if (numCustomers == 0)
+            return ConstructionHeuristic.toSolution(new ArrayList<>(), instance);
+
+        double depotX = instance.getXCoordOfCustomer(0);
+        double depotY = instance.getYCoordOfCustomer(0);
+        double[] angle = new double[instance.getNumCustomers()];
+        List<Integer> customers = new ArrayList<>(numCustomers);
+        for (int customer = 1; customer < instance.getNumCustomers(); customer++) {
+            angle[customer] = Math.atan2(instance.getYCoordOfCustomer(customer) - depotY, instance.getXCoordOfCustomer(customer) - depotX);
+            customers.add(customer);
+        }
+        customers.sort(Comparator.comparingDouble((Integer customer) -> angle[customer]));
+
+        // start the sweep at evenly spaced customers around the depot
+        int numStarts = Math.min(numCustomers, MAX_START_ANGLES);
+        Solution bestSolution = null;
+        for (int s = 0; s < numStarts; s++) {
+            int start = (int) ((long) s * numCustomers / numStarts);
+            Solution solution = sweep(customers, start, instance);
+            if (solution != null && (bestSolution == null || solution.totalDistance < bestSolution.totalDistance))
+                bestSolution = solution;
+        }
+        return bestSolution;
+    }
+
+    /**
+     * @param customers: the customers sorted by angle
+     * @param start: index (in customers) of the first customer swept
+     */
+    private Solution sweep(List<Integer> customers, int start, VRPInstance instance) {
+        List<List<Integer>> routes = new ArrayList<>();
+        List<Integer> route = new ArrayList<>();
+        int load = 0;
+        for (int i = 0; i < customers.size(); i++) {
+            int customer = customers.get((start + i) % customers.size());
+            int demand = instance.demandOfCustomer[customer];
+            if (demand > instance.getVehicleCapacity())
+                return null;
+            if (load + demand > instance.getVehicleCapacity()) {
+                routes.add(route);
+                route = new ArrayList<>();
+                load = 0;
+            }
+            route.add(customer);
+            load += demand;
+        }
+        routes.add(route);
+
+        if (!ConstructionHeuristic.fitIntoFleet(routes, instance))
+            return null;
+        for (int r = 0; r < routes.size(); r++) {
+            routes.set(r, ConstructionHeuristic.nearestNeighborOrder(routes.get(r), instance));
+        }
+        return ConstructionHeuristic.toSolution(routes, instance);
+    }
+}
@@ -0,0 +1,224 @@
+package solver.ls.ConstructionHeuristic;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts from a solution found by an earlier run, rather than building one from scratch. The solution is read from a
+ * .sol file (as written by SolutionFileGenerator) or from a results log (as written by runAll.sh, runBatch.sh or
+ * --stream), in which case the last solution logged for the instance is used.
+ * <p>
+ * The instance may have changed since that run, so the solution is repaired to fit it: customers that no longer
+ * exist (or that are visited twice) are dropped, overloaded routes shed customers until they fit their vehicle,
+ * routes beyond the fleet are dissolved, and customers that aren't on any route are inserted wherever it's cheapest.
+ * If the solution can't be read or repaired, the fallback heuristic builds the initial solution instead.
+ */
+public class WarmStartConstruction implements ConstructionHeuristic {
+
+    private static final String INSTANCE_FIELD = "\"Instance\": \"";
+    private static final String SOLUTION_FIELD = "\"Solution\": \"";
+
+    private final String file;
+    private final String instanceName; // the instance's file name, as it appears in results logs
+    private final ConstructionHeuristic fallback;
+
+    public WarmStartConstruction(String file, String instanceName, ConstructionHeuristic fallback) {
+        this.file = file;
+        this.instanceName = instanceName;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Solution construct(VRPInstance instance) {
+        List<List<Integer>> routes;
+        try {
+            routes = readRoutes();
+        } catch (NoSuchFileException e) {
+            System.out.println("Error: couldn't warm start from " + file + ": no such file");
+            return fallback.construct(instance);
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Error: couldn't warm start from " + file + ": " + e.getMessage());
+            return fallback.construct(instance);
+        }
+        if (routes == null) {
+            System.out.println("Error: couldn't warm start from " + file + ": no solution for " + instanceName);
+            return fallback.construct(instance);
+        }
+
+        Solution solution = repair(routes, instance);
+        if (solution == null) {
+            System.out.println("Error: couldn't warm start from " + file + ": its solution can't be repaired to fit the instance");
+            return fallback.construct(instance);
+        }
+        return solution;
+    }
+
+    /**
+     * @return the customers on each route of the solution (without the depot), or null if a results log has no
+     * solution for the instance
+     */
+    private List<List<Integer>> readRoutes() throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+        if (lines.isEmpty())
+            return null;
+
+        // a .sol file: the first line holds the distance and optimality flag, every other line is a route
+        if (!lines.get(0).trim().startsWith("{"))
+            return routesOf(String.join(" ", lines.subList(1, lines.size())));
+
+        // a results log: one JSON line per solve, whose solution starts with the optimality flag
+        String solution = null;
+        for (String line : lines) {
+            String instanceField = fieldValue(line, INSTANCE_FIELD);
+            String solutionField = fieldValue(line, SOLUTION_FIELD);
+            if (instanceName.equals(instanceField) && solutionField != null)
+                solution = solutionField;
+        }
+        if (solution == null)
+            return null;
+        String[] tokens = solution.trim().split("\\s+", 2);
+        return routesOf(tokens.length > 1 ? tokens[1] : "");
+    }
+
+    // e.g. the value of "Instance": "16_5_1.vrp" in a results log line, or null if the line has no such field
+    private static String fieldValue(String line, String field) {
+        int start = line.indexOf(field);
+        if (start == -1)
+            return null;
+        start += field.length();
+        int end = line.indexOf('"', start);
+        return end == -1 ? null : line.substring(start, end);
+    }
+
+    /**
+     * @param tour: the routes one after another, each starting and ending at the depot (e.g. 0 4 13 0 0 1 3 2 0)
+     */
+    private static List<List<Integer>> routesOf(String tour) {
+        List<List<Integer>> routes = new ArrayList<>();
+        List<Integer> route = null; // null between routes
+        for (String token : tour.trim().split("\\s+")) {
+            if (token.isEmpty())
+                continue;
+            int location = Integer.parseInt(token);
+            if (location != 0) {
+                if (route == null)
+                    route = new ArrayList<>();
+                route.add(location);
+            } else if (route == null) {
+                route = new ArrayList<>(); // leaving the depot
+            } else {
+                routes.add(route); // back at the depot
+                route = null;
+            }
+        }
+        if (route != null && !route.isEmpty())
+            routes.add(route);
+        return routes;
+    }
+
+    /**
+     * @param routes: the customers on each route of the earlier solution (without the depot)
+     * @return a feasible solution for the instance that keeps as much of the earlier solution as it can, or null if
+     * the customers couldn't be fit into the fleet
+     */
+    static Solution repair(List<List<Integer>> routes, VRPInstance instance) {
+        boolean[] onRoute = new boolean[instance.getNumCustomers()];
+        List<List<Integer>> repaired = new ArrayList<>();
+        int numKept = 0;
+        int numDropped = 0;
+        for (List<Integer> route : routes) {
+            List<Integer> kept = new ArrayList<>();
+            int load = 0;
+            for (int customer : route) {
+                if (customer < 1 || customer >= instance.getNumCustomers() || onRoute[customer]) {
+                    numDropped++;
+                    continue;
+                }
+                onRoute[customer] = true;
+                kept.add(customer);
+                load += instance.demandOfCustomer[customer];
+            }
+            // shed customers until the route fits its vehicle, taking off as little demand as possible (so they're
+            // easier to fit into the other routes)
+            while (load > instance.getVehicleCapacity()) {
+                int removed = kept.remove(customerToShed(kept, load - instance.getVehicleCapacity(), instance));
+                onRoute[removed] = false;
+                load -= instance.demandOfCustomer[removed];
+            }
+            numKept += kept.size();
+            if (!kept.isEmpty())
+                repaired.add(kept);
+        }
+
+        if (!ConstructionHeuristic.fitIntoFleet(repaired, instance))
+            return null;
+        List<Integer> loads = new ArrayList<>(repaired.size());
+        for (List<Integer> route : repaired) {
+            int load = 0;
+            for (int customer : route) {
+                load += instance.demandOfCustomer[customer];
+            }
+            loads.add(load);
+        }
+        List<Integer> missing = new ArrayList<>();
+        for (int customer = 1; customer < instance.getNumCustomers(); customer++) {
+            if (!onRoute[customer])
+                missing.add(customer);
+        }
+        if (!ConstructionHeuristic.insertCheapest(missing, repaired, loads, instance))
+            return null;
+
+        Solution solution = ConstructionHeuristic.toSolution(repaired, instance);
+        if (!instance.isSolutionFeasible(solution))
+            return null;
+        System.out.println("Warm start: kept " + numKept + " customers on their routes, dropped " + numDropped
+                + " unknown or repeated ones, inserted " + missing.size() + " (distance " + solution.totalDistance + ")");
+        return solution;
+    }
+
+    /**
+     * @param overload: how far the route's load is over its vehicle's capacity
+     * @return the index of the customer with the smallest demand that still removes the whole overload (of those, the
+     * one whose removal saves the most distance), or of the customer with the largest demand if none of them does
+     */
+    private static int customerToShed(List<Integer> route, int overload, VRPInstance instance) {
+        int bestIdx = 0;
+        for (int i = 1; i < route.size(); i++) {
+            int demand = instance.demandOfCustomer[route.get(i)];
+            int bestDemand = instance.demandOfCustomer[route.get(bestIdx)];
+            boolean covers = demand >= overload;
+            boolean bestCovers = bestDemand >= overload;
+            if (covers != bestCovers) {
+                if (covers)
+                    bestIdx = i;
+                continue;
+            }
+            if (!covers) {
+                if (demand > bestDemand)
+                    bestIdx = i;
+                continue;
+            }
+            if (demand > bestDemand)
+                continue;
+            if (demand < bestDemand || removalSaving(route, i, instance) > removalSaving(route, bestIdx, instance))
+                bestIdx = i;
+        }
+        return bestIdx;
+    }
+
+    private static double removalSaving(List<Integer> route, int idx, VRPInstance instance) {
+        int before = idx == 0 ? 0 : route.get(idx - 1);
+        int after = idx == route.size() - 1 ? 0 : route.get(idx + 1);
+        int customer = route.get(idx);
+        return instance.distance.get(before, customer) + instance.distance.get(customer, after)
+                - instance.distance.get(before, after);
+    }
+}
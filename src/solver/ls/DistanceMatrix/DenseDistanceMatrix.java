@@ -0,0 +1,47 @@
+package solver.ls.DistanceMatrix;
+
+import java.util.Arrays;
+
+/**
+ * The full matrix, with every pair stored twice: the fastest lookups, but 8 * n^2 bytes of memory
+ */
+public class DenseDistanceMatrix implements DistanceMatrix {
+
+    private double[][] distance; // may have room for more locations than there are (see update)
+
+    public DenseDistanceMatrix(double[] xCoords, double[] yCoords) {
+        int numLocations = xCoords.length;
+        this.distance = new double[numLocations][numLocations];
+        // every pair is computed twice (once per row), since computing whole rows in bulk is faster than mirroring
+        // half of them into the other rows (which writes across every row); both give exactly the same distance
+        for (int i = 0; i < numLocations; i++) {
+            DistanceKernel.INSTANCE.distances(xCoords[i], yCoords[i], xCoords, yCoords, 0, numLocations, distance[i], 0);
+        }
+    }
+
+    @Override
+    public double get(int i, int j) {
+        return distance[i][j];
+    }
+
+    @Override
+    public void getRow(int i, double[] row, int numLocations) {
+        System.arraycopy(distance[i], 0, row, 0, numLocations);
+    }
+
+    @Override
+    public void update(double[] xCoords, double[] yCoords, int location) {
+        if (location >= distance.length) {
+            double[][] grown = new double[DistanceMatrix.grownCapacity(distance.length, location)][];
+            for (int i = 0; i < grown.length; i++) {
+                grown[i] = i < distance.length ? Arrays.copyOf(distance[i], grown.length) : new double[grown.length];
+            }
+            distance = grown;
+        }
+        double[] row = distance[location];
+        DistanceKernel.INSTANCE.distances(xCoords[location], yCoords[location], xCoords, yCoords, 0, xCoords.length, row, 0);
+        for (int j = 0; j < xCoords.length; j++) {
+            distance[j][location] = row[j];
+        }
+    }
+}
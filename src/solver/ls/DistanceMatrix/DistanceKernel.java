@@ -0,0 +1,41 @@
+package solver.ls.DistanceMatrix;
+
+/**
+ * Computes Euclidean distances in bulk (rather than one pair at a time), for building distance matrices and checking
+ * route lengths. With the JDK's Vector API available (java --add-modules jdk.incubator.vector), the vectorized kernel
+ * computes several distances per instruction; otherwise, the scalar one computes them in a plain loop. Both compute
+ * exactly the same values as DistanceMatrix.euclidean (with the same rounding), so the choice never changes a result.
+ */
+public interface DistanceKernel {
+
+    DistanceKernel INSTANCE = create(); // the fastest kernel available
+
+    /**
+     * Computes the distances from a point to the locations from ... to - 1, into out[outOffset] ... out[outOffset + to - from - 1]
+     */
+    void distances(double x, double y, double[] xCoords, double[] yCoords, int from, int to, double[] out, int outOffset);
+
+    /**
+     * Like distances, but rounds each distance to a float (as a cast would)
+     */
+    void distances(double x, double y, double[] xCoords, double[] yCoords, int from, int to, float[] out, int outOffset);
+
+    /**
+     * Computes the lengths of the arcs along a path through the locations path[from] ... path[to - 1], into
+     * out[0] ... out[to - from - 2] (the length of the arc from path[from + k] to path[from + k + 1] goes in out[k])
+     */
+    void arcLengths(double[] xCoords, double[] yCoords, int[] path, int from, int to, double[] out);
+
+    private static DistanceKernel create() {
+        // the vectorized kernel is only loaded if the module is, since its class can't even be linked without it
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (DistanceKernel) Class.forName("solver.ls.DistanceMatrix.VectorDistanceKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // fall back to the scalar kernel
+            }
+        }
+        return new ScalarDistanceKernel();
+    }
+}
@@ -0,0 +1,96 @@
+package solver.ls.DistanceMatrix;
+
+/**
+ * Distances between all pairs of locations (customers and the depot). Distances are Euclidean, so they are
+ * symmetric and the distance from a location to itself is 0.
+ */
+public interface DistanceMatrix {
+
+    enum Type {
+        DENSE,            // full double[n][n] matrix: fastest lookups, but 8 * n^2 bytes
+        TRIANGULAR,       // flat lower-triangular double[] (each pair stored once): half the memory of DENSE
+        FLOAT_TRIANGULAR, // flat lower-triangular float[]: a quarter of the memory of DENSE, at float precision
+        EUCLIDEAN,        // nothing stored: distances are computed from the coordinates
+        AUTO              // DENSE for small instances, TRIANGULAR for mid-size ones and EUCLIDEAN for large ones
+    }
+
+    int AUTO_DENSE_MAX_LOCATIONS = 2_000;      // 32 MB as a dense matrix
+    int AUTO_TRIANGULAR_MAX_LOCATIONS = 10_000; // 400 MB as a triangular matrix
+
+    double get(int i, int j);
+
+    /**
+     * Looks up the distances from a location to the locations 0 ... numLocations - 1 (the same ones get returns) into
+     * row[0] ... row[numLocations - 1], which is faster than getting them one at a time when they're computed
+     */
+    default void getRow(int i, double[] row, int numLocations) {
+        for (int j = 0; j < numLocations; j++) {
+            row[j] = get(i, j);
+        }
+    }
+
+    /**
+     * Recomputes the distances between a location and every other one, after the location was added (at the end) or
+     * its coordinates changed. Every other distance is kept, so this takes time linear in the number of locations.
+     * The matrix must not be read while it's being updated.
+     *
+     * @param xCoords, yCoords: the coordinates of every location (after the change)
+     */
+    void update(double[] xCoords, double[] yCoords, int location);
+
+    static DistanceMatrix create(Type type, double[] xCoords, double[] yCoords) {
+        int numLocations = xCoords.length;
+        if (type == Type.AUTO) {
+            if (numLocations <= AUTO_DENSE_MAX_LOCATIONS)
+                type = Type.DENSE;
+            else if (numLocations <= AUTO_TRIANGULAR_MAX_LOCATIONS)
+                type = Type.TRIANGULAR;
+            else
+                type = Type.EUCLIDEAN;
+        }
+
+        switch (type) {
+            case DENSE:
+                return new DenseDistanceMatrix(xCoords, yCoords);
+            case TRIANGULAR:
+                return new TriangularDistanceMatrix(xCoords, yCoords);
+            case FLOAT_TRIANGULAR:
+                return new FloatTriangularDistanceMatrix(xCoords, yCoords);
+            default:
+                return new EuclideanDistanceMatrix(xCoords, yCoords);
+        }
+    }
+
+    static double euclidean(double x1, double y1, double x2, double y2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * @return the index of the pair (i, j) in a flat lower-triangular matrix (which doesn't store the diagonal)
+     */
+    static int triangularIndex(int i, int j) {
+        if (i < j) {
+            int temp = i;
+            i = j;
+            j = temp;
+        }
+        return (int) ((long) i * (i - 1) / 2) + j;
+    }
+
+    /**
+     * @return the capacity (in locations) to grow a matrix with room for oldCapacity locations to, so that it has room
+     * for the location (growing by half at a time, so adding locations one by one takes amortized linear time each)
+     */
+    static int grownCapacity(int oldCapacity, int location) {
+        return Math.max(location + 1, oldCapacity + oldCapacity / 2);
+    }
+
+    static int triangularSize(int numLocations) {
+        long size = (long) numLocations * (numLocations - 1) / 2;
+        if (size > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("too many locations (" + numLocations + ") for a triangular distance matrix");
+        return (int) size;
+    }
+}
@@ -0,0 +1,36 @@
+package solver.ls.DistanceMatrix;
+
+/**
+ * Doesn't store the matrix at all: distances are computed from the coordinates whenever they are needed, so
+ * memory use is linear in the number of locations. Nothing is cached either: computing a distance (a square root
+ * of coordinates that mostly stay in the CPU caches) is cheaper than looking it up in a cache of recent pairs, and
+ * lookups don't allocate or need any synchronization between threads.
+ */
+public class EuclideanDistanceMatrix implements DistanceMatrix {
+
+    private double[] xCoords;
+    private double[] yCoords;
+
+    public EuclideanDistanceMatrix(double[] xCoords, double[] yCoords) {
+        this.xCoords = xCoords;
+        this.yCoords = yCoords;
+    }
+
+    @Override
+    public double get(int i, int j) {
+        if (i == j)
+            return 0.0;
+        return DistanceMatrix.euclidean(xCoords[i], yCoords[i], xCoords[j], yCoords[j]);
+    }
+
+    @Override
+    public void getRow(int i, double[] row, int numLocations) {
+        DistanceKernel.INSTANCE.distances(xCoords[i], yCoords[i], xCoords, yCoords, 0, numLocations, row, 0);
+    }
+
+    @Override
+    public void update(double[] xCoords, double[] yCoords, int location) {
+        this.xCoords = xCoords;
+        this.yCoords = yCoords;
+    }
+}
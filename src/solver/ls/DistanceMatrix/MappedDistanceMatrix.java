@@ -0,0 +1,200 @@
+package solver.ls.DistanceMatrix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * A triangular matrix (like TriangularDistanceMatrix) kept in a file in a cache directory, named after a hash of the
+ * instance's coordinates, and memory-mapped rather than read: the first run on an instance computes the file, and
+ * every later run (or any other solver process on the same machine) maps the same file, so its distances are read
+ * straight from the operating system's page cache. They're never copied onto the heap, or recomputed.
+ * <p>
+ * The file is mapped read-only, since other processes may be using it. The first update copies the mapped
+ * distances onto the heap (so changes are never written to the file). Rows for added locations are kept on the heap.
+ */
+public class MappedDistanceMatrix implements DistanceMatrix {
+
+    private static final long MAGIC = 0x5652504449535431L; // "VRPDIST1"
+    private static final int HEADER_BYTES = 16; // the magic number and the number of locations (padded to 8 bytes)
+    private static final int CHUNK_BITS = 27; // each mapping holds up to 2^27 distances (1 GB), below the 2 GB limit
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final String key;
+    private final DoubleBuffer[] chunks; // the distances in the file (or, once updated, copies of them on the heap)
+    private final int mappedSize; // the number of distances in the file
+    private boolean copied = false;
+    private double[] extra = new double[0]; // the distances of rows beyond the file's (see update)
+    private int capacity; // the number of locations there is room for
+
+    private MappedDistanceMatrix(String key, DoubleBuffer[] chunks, int numLocations) {
+        this.key = key;
+        this.chunks = chunks;
+        this.mappedSize = DistanceMatrix.triangularSize(numLocations);
+        this.capacity = numLocations;
+    }
+
+    /**
+     * Maps the instance's distance matrix from the cache directory, computing it (and adding it to the cache) if it
+     * isn't there yet
+     *
+     * @throws IOException if the cache directory can't be read or written
+     */
+    public static MappedDistanceMatrix open(Path directory, double[] xCoords, double[] yCoords) throws IOException {
+        int numLocations = xCoords.length;
+        String key = contentKey(xCoords, yCoords);
+        Path file = directory.resolve(key + ".dist");
+        if (!hasMatrix(file, numLocations)) {
+            Files.createDirectories(directory);
+            // written to a file of its own first, so other processes never map a partially written matrix
+            Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                write(tempFile, xCoords, yCoords);
+                try {
+                    Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mappings stay valid once the channel is closed
+            return new MappedDistanceMatrix(key, map(channel, FileChannel.MapMode.READ_ONLY, numLocations), numLocations);
+        }
+    }
+
+    /**
+     * @return a hash of the coordinates of every location (as hex), which is all the distances depend on: instances
+     * with the same coordinates share their cached matrix, and an instance whose coordinates changed doesn't
+     */
+    public static String contentKey(double[] xCoords, double[] yCoords) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 isn't available", e); // every JVM has to provide it
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + 2 * Double.BYTES * xCoords.length);
+        buffer.putInt(xCoords.length);
+        for (int i = 0; i < xCoords.length; i++) {
+            buffer.putDouble(xCoords[i]).putDouble(yCoords[i]);
+        }
+        byte[] hash = digest.digest(buffer.array());
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < 16; i++) { // 128 bits are plenty to tell instances apart
+            key.append(String.format("%02x", hash[i]));
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return the instance's key in the cache (see contentKey), which other files cached for it can be named after
+     */
+    public String getKey() {
+        return key;
+    }
+
+    // whether the file holds a complete matrix for this many locations (a different or truncated file is replaced)
+    private static boolean hasMatrix(Path file, int numLocations) throws IOException {
+        if (!Files.isRegularFile(file)
+                || Files.size(file) != HEADER_BYTES + (long) Double.BYTES * DistanceMatrix.triangularSize(numLocations))
+            return false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.nativeOrder());
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // keep reading until the header is complete (or the file ends)
+            }
+            return header.getLong(0) == MAGIC && header.getInt(Long.BYTES) == numLocations;
+        }
+    }
+
+    private static void write(Path file, double[] xCoords, double[] yCoords) throws IOException {
+        int numLocations = xCoords.length;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            DoubleBuffer[] chunks = map(channel, FileChannel.MapMode.READ_WRITE, numLocations);
+            double[] row = new double[numLocations];
+            for (int i = 1; i < numLocations; i++) {
+                // row i holds the pairs (i, 0) ... (i, i - 1), one after another (possibly across two chunks)
+                DistanceKernel.INSTANCE.distances(xCoords[i], yCoords[i], xCoords, yCoords, 0, i, row, 0);
+                int idx = DistanceMatrix.triangularIndex(i, 0);
+                for (int written = 0; written < i; ) {
+                    int chunkIdx = (idx + written) >>> CHUNK_BITS;
+                    int offset = (idx + written) & (CHUNK_SIZE - 1);
+                    int length = Math.min(i - written, CHUNK_SIZE - offset);
+                    chunks[chunkIdx].put(offset, row, written, length);
+                    written += length;
+                }
+            }
+            // the header goes in last, so a file that was only partly written is never taken for a matrix
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.nativeOrder());
+            header.putLong(MAGIC).putInt(numLocations).rewind();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+    }
+
+    // maps the distances in the file (after the header), a chunk at a time
+    private static DoubleBuffer[] map(FileChannel channel, FileChannel.MapMode mode, int numLocations) throws IOException {
+        int size = DistanceMatrix.triangularSize(numLocations);
+        DoubleBuffer[] chunks = new DoubleBuffer[(int) (((long) size + CHUNK_SIZE - 1) >>> CHUNK_BITS)];
+        for (int c = 0; c < chunks.length; c++) {
+            int chunkSize = Math.min(CHUNK_SIZE, size - c * CHUNK_SIZE);
+            long position = HEADER_BYTES + (long) c * CHUNK_SIZE * Double.BYTES;
+            chunks[c] = channel.map(mode, position, (long) chunkSize * Double.BYTES)
+                    .order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        }
+        return chunks;
+    }
+
+    @Override
+    public double get(int i, int j) {
+        if (i == j)
+            return 0.0;
+        int idx = DistanceMatrix.triangularIndex(i, j);
+        if (idx < mappedSize)
+            return chunks[idx >>> CHUNK_BITS].get(idx & (CHUNK_SIZE - 1));
+        return extra[idx - mappedSize];
+    }
+
+    @Override
+    public void update(double[] xCoords, double[] yCoords, int location) {
+        if (!copied) {
+            for (int c = 0; c < chunks.length; c++) {
+                double[] copy = new double[chunks[c].capacity()];
+                chunks[c].get(0, copy);
+                chunks[c] = DoubleBuffer.wrap(copy);
+            }
+            copied = true;
+        }
+        if (location >= capacity) {
+            // each row only holds the pairs with lower locations, so a bigger matrix just has more rows at the end
+            capacity = DistanceMatrix.grownCapacity(capacity, location);
+            extra = Arrays.copyOf(extra, DistanceMatrix.triangularSize(capacity) - mappedSize);
+        }
+        for (int j = 0; j < xCoords.length; j++) {
+            if (j != location)
+                set(DistanceMatrix.triangularIndex(location, j), DistanceMatrix.euclidean(xCoords[location], yCoords[location], xCoords[j], yCoords[j]));
+        }
+    }
+
+    private void set(int idx, double distance) {
+        if (idx < mappedSize)
+            chunks[idx >>> CHUNK_BITS].put(idx & (CHUNK_SIZE - 1), distance);
+        else
+            extra[idx - mappedSize] = distance;
+    }
+}
@@ -0,0 +1,30 @@
+package solver.ls.DistanceMatrix;
+
+/**
+ * Computes the distances one at a time (when the Vector API isn't available)
+ */
+public class ScalarDistanceKernel implements DistanceKernel {
+
+    @Override
+    public void distances(double x, double y, double[] xCoords, double[] yCoords, int from, int to, double[] out, int outOffset) {
+        for (int j = from; j < to; j++) {
+            out[outOffset + j - from] = DistanceMatrix.euclidean(x, y, xCoords[j], yCoords[j]);
+        }
+    }
+
+    @Override
+    public void distances(double x, double y, double[] xCoords, double[] yCoords, int from, int to, float[] out, int outOffset) {
+        for (int j = from; j < to; j++) {
+            out[outOffset + j - from] = (float) DistanceMatrix.euclidean(x, y, xCoords[j], yCoords[j]);
+        }
+    }
+
+    @Override
+    public void arcLengths(double[] xCoords, double[] yCoords, int[] path, int from, int to, double[] out) {
+        for (int k = from; k < to - 1; k++) {
+            int i = path[k];
+            int j = path[k + 1];
+            out[k - from] = DistanceMatrix.euclidean(xCoords[i], yCoords[i], xCoords[j], yCoords[j]);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package solver.ls.DistanceMatrix;
+
+import java.util.Arrays;
+
+/**
+ * Stores each pair's distance once, in a flat array holding the lower triangle of the matrix row by row
+ */
+public class TriangularDistanceMatrix implements DistanceMatrix {
+
+    private double[] distance; // may have room for more locations than there are (see update)
+    private int capacity; // the number of locations there is room for
+
+    public TriangularDistanceMatrix(double[] xCoords, double[] yCoords) {
+        int numLocations = xCoords.length;
+        this.distance = new double[DistanceMatrix.triangularSize(numLocations)];
+        this.capacity = numLocations;
+        for (int i = 1; i < numLocations; i++) {
+            // row i holds the pairs (i, 0) ... (i, i - 1), one after another
+            DistanceKernel.INSTANCE.distances(xCoords[i], yCoords[i], xCoords, yCoords, 0, i, distance, DistanceMatrix.triangularIndex(i, 0));
+        }
+    }
+
+    @Override
+    public double get(int i, int j) {
+        if (i == j)
+            return 0.0;
+        return distance[DistanceMatrix.triangularIndex(i, j)];
+    }
+
+    @Override
+    public void update(double[] xCoords, double[] yCoords, int location) {
+        if (location >= capacity) {
+            // each row only holds the pairs with lower locations, so a bigger matrix just has more rows at the end
+            capacity = DistanceMatrix.grownCapacity(capacity, location);
+            distance = Arrays.copyOf(distance, DistanceMatrix.triangularSize(capacity));
+        }
+        if (location > 0)
+            DistanceKernel.INSTANCE.distances(xCoords[location], yCoords[location], xCoords, yCoords, 0, location,
+                    distance, DistanceMatrix.triangularIndex(location, 0));
+        for (int j = location + 1; j < xCoords.length; j++) { // in the rows of the later locations
+            distance[DistanceMatrix.triangularIndex(location, j)] = DistanceMatrix.euclidean(xCoords[location], yCoords[location], xCoords[j], yCoords[j]);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package solver.ls.DistanceMatrix;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Computes as many distances at once as the CPU's widest vectors hold (e.g. 4 doubles with AVX2), using the JDK's
+ * incubating Vector API. Only loaded by DistanceKernel.create when the jdk.incubator.vector module is available.
+ * The arithmetic is the same as DistanceMatrix.euclidean's, lane by lane (subtract, square, add, then a correctly
+ * rounded square root, without fused multiply-adds), so the distances are exactly the same.
+ */
+class VectorDistanceKernel implements DistanceKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    // as many floats as SPECIES has doubles (in vectors half as wide)
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED
+            .withShape(VectorShape.forBitSize(SPECIES.vectorBitSize() / 2));
+
+    @Override
+    public void distances(double x, double y, double[] xCoords, double[] yCoords, int from, int to, double[] out, int outOffset) {
+        DoubleVector xs = DoubleVector.broadcast(SPECIES, x);
+        DoubleVector ys = DoubleVector.broadcast(SPECIES, y);
+        int j = from;
+        for (int bound = from + SPECIES.loopBound(to - from); j < bound; j += SPECIES.length()) {
+            DoubleVector dx = xs.sub(DoubleVector.fromArray(SPECIES, xCoords, j));
+            DoubleVector dy = ys.sub(DoubleVector.fromArray(SPECIES, yCoords, j));
+            dx.mul(dx).add(dy.mul(dy)).sqrt().intoArray(out, outOffset + j - from);
+        }
+        for (; j < to; j++) { // the locations left over after the last full vector
+            out[outOffset + j - from] = DistanceMatrix.euclidean(x, y, xCoords[j], yCoords[j]);
+        }
+    }
+
+    @Override
+    public void distances(double x, double y, double[] xCoords, double[] yCoords, int from, int to, float[] out, int outOffset) {
+        DoubleVector xs = DoubleVector.broadcast(SPECIES, x);
+        DoubleVector ys = DoubleVector.broadcast(SPECIES, y);
+        int j = from;
+        for (int bound = from + SPECIES.loopBound(to - from); j < bound; j += SPECIES.length()) {
+            DoubleVector dx = xs.sub(DoubleVector.fromArray(SPECIES, xCoords, j));
+            DoubleVector dy = ys.sub(DoubleVector.fromArray(SPECIES, yCoords, j));
+            // narrowed (rounding to nearest, like a cast) into a vector of as many floats
+            ((FloatVector) dx.mul(dx).add(dy.mul(dy)).sqrt().convertShape(VectorOperators.D2F, FLOAT_SPECIES, 0))
+                    .intoArray(out, outOffset + j - from);
+        }
+        for (; j < to; j++) {
+            out[outOffset + j - from] = (float) DistanceMatrix.euclidean(x, y, xCoords[j], yCoords[j]);
+        }
+    }
+
+    @Override
+    public void arcLengths(double[] xCoords, double[] yCoords, int[] path, int from, int to, double[] out) {
+        int k = from;
+        // each vector holds the arcs path[k + l] -> path[k + l + 1], with both ends gathered from the coordinates
+        for (int bound = from + SPECIES.loopBound(Math.max(to - 1 - from, 0)); k < bound; k += SPECIES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, xCoords, 0, path, k)
+                    .sub(DoubleVector.fromArray(SPECIES, xCoords, 0, path, k + 1));
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, yCoords, 0, path, k)
+                    .sub(DoubleVector.fromArray(SPECIES, yCoords, 0, path, k + 1));
+            dx.mul(dx).add(dy.mul(dy)).sqrt().intoArray(out, k - from);
+        }
+        for (; k < to - 1; k++) {
+            int i = path[k];
+            int j = path[k + 1];
+            out[k - from] = DistanceMatrix.euclidean(xCoords[i], yCoords[i], xCoords[j], yCoords[j]);
+        }
+    }
+}
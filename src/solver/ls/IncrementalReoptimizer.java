@@ -0,0 +1,315 @@
+package solver.ls;
+
+import solver.ls.MovingStrategy.ExchangeMove;
+import solver.ls.MovingStrategy.RelocateMove;
+
+/**
+ * Re-plans a solved instance after small changes to its customers (orders added, cancelled or resized), without
+ * reading the instance again or searching from scratch. Each change is applied to the instance and to the solution
+ * right away: only a new customer's distances are computed, a new customer is inserted wherever it's cheapest (among
+ * the routes with room for it, or after moving another customer out of the way), and a customer whose route no longer
+ * has room for its new demand moves to the route where that's cheapest. reoptimize then runs a short local search
+ * that only starts from the routes that changed.
+ * <p>
+ * The instance must not be changed while it's being searched (by localSearch, or by another reoptimizer).
+ */
+public class IncrementalReoptimizer {
+
+    private static final double EPSILON = 1e-9; // moves must improve by more than this (so rounding can't cycle)
+
+    private final VRPLocalSearch instance;
+    private final Solution solution;
+    private final boolean[] changedRoutes; // routes to start moves from the next time reoptimize runs
+
+    private final IntraRouteOptimizer intraRouteOptimizer;
+
+    // reused for every move evaluated (so reoptimizing doesn't allocate)
+    private final RelocateMove relocateMove = new RelocateMove();
+    private final ExchangeMove exchangeMove = new ExchangeMove();
+
+    // the best move found from the route being looked at
+    private boolean bestIsRelocate;
+    private int bestCustomerIdx;
+    private int bestOtherRouteIdx;
+    private int bestOtherIdx; // insertion position (relocate) or position of the other customer (exchange)
+    private double bestDistanceChange;
+
+    /**
+     * @param solution: a feasible solution for the instance (e.g. the one localSearch returned), which is copied
+     */
+    public IncrementalReoptimizer(VRPLocalSearch instance, Solution solution) {
+        this.instance = instance;
+        this.solution = solution.copy();
+        instance.solutionTotalDistance(this.solution);
+        this.changedRoutes = new boolean[solution.numRoutes()];
+        this.intraRouteOptimizer = new IntraRouteOptimizer(instance, false);
+    }
+
+    /**
+     * @return the current solution (a copy, which later changes don't affect)
+     */
+    public Solution getSolution() {
+        return solution.copy();
+    }
+
+    /**
+     * Adds a customer to the instance, and inserts it wherever it's cheapest among the routes that have room for it
+     * (if none has, after moving another customer to a route that has room for that one)
+     *
+     * @return the new customer's index
+     * @throws IllegalStateException if no route has room for the customer (in which case it isn't added)
+     */
+    public int addCustomer(int demand, double xCoord, double yCoord) {
+        checkDemand(demand);
+        int customer = instance.addCustomer(demand, xCoord, yCoord);
+        if (!insertCheapest(customer)) {
+            instance.removeCustomer(customer);
+            throw new IllegalStateException("no vehicle has room for a new customer with demand " + demand);
+        }
+        return customer;
+    }
+
+    /**
+     * Removes a customer from the instance and from its route. Customers stay numbered 1 ... numCustomers - 1, so
+     * the last customer takes over the removed customer's index.
+     */
+    public void removeCustomer(int customer) {
+        checkCustomer(customer);
+        takeOffRoute(customer);
+        int last = instance.getNumCustomers() - 1;
+        if (customer != last)
+            solution.renumberCustomer(last, customer);
+        instance.removeCustomer(customer);
+    }
+
+    /**
+     * Changes a customer's demand. If its route no longer has room for it, the customer moves to the route where
+     * that's cheapest (in the same way as a new customer is inserted)
+     *
+     * @throws IllegalStateException if no route has room for the customer's new demand (in which case its demand
+     * isn't changed)
+     */
+    public void setDemand(int customer, int demand) {
+        checkCustomer(customer);
+        checkDemand(demand);
+        int oldDemand = instance.demandOfCustomer[customer];
+        int routeIdx = solution.routeOf(customer);
+        int customerIdx = solution.positionOf(customer);
+        instance.setDemand(customer, demand);
+        solution.updateRouteCache(routeIdx, customerIdx, instance);
+        changedRoutes[routeIdx] = true;
+        if (solution.routeLoad[routeIdx] <= instance.getVehicleCapacity())
+            return;
+
+        // its own route doesn't have room for it anymore, so it can only be inserted into another one
+        takeOffRoute(customer);
+        if (!insertCheapest(customer)) {
+            instance.setDemand(customer, oldDemand);
+            insertAt(routeIdx, customerIdx, customer);
+            throw new IllegalStateException("no vehicle has room for customer " + customer + " with demand " + demand);
+        }
+    }
+
+    /**
+     * Runs a short local search around the routes that changed: the order of each changed route is optimized, and
+     * its customers are moved to (or swapped with a customer at) their best position on any other route, for as long
+     * as that improves the solution. Routes changed by those moves are then looked at in turn.
+     *
+     * @param timeLimit: seconds the search may run for (at most)
+     * @return the change in the solution's total distance (never positive)
+     */
+    public double reoptimize(double timeLimit) {
+        Timer watch = new Timer();
+        watch.start();
+        instance.refreshNeighborLists();
+
+        double startDistance = solution.totalDistance;
+        int routeIdx = nextChangedRoute(0);
+        while (routeIdx != -1 && watch.getTime() < timeLimit) {
+            changedRoutes[routeIdx] = false;
+            intraRouteOptimizer.optimizeRoute(solution, routeIdx);
+            if (findBestMove(routeIdx)) {
+                applyBestMove(routeIdx);
+                changedRoutes[routeIdx] = true;
+                changedRoutes[bestOtherRouteIdx] = true;
+            }
+            routeIdx = nextChangedRoute(routeIdx);
+        }
+        return solution.totalDistance - startDistance;
+    }
+
+    // the first changed route from fromRouteIdx onwards (wrapping around), or -1 if no route changed
+    private int nextChangedRoute(int fromRouteIdx) {
+        for (int i = 0; i < changedRoutes.length; i++) {
+            int routeIdx = (fromRouteIdx + i) % changedRoutes.length;
+            if (changedRoutes[routeIdx])
+                return routeIdx;
+        }
+        return -1;
+    }
+
+    /**
+     * Looks for the best improving relocate or exchange move between a customer of the route and any other route
+     *
+     * @return whether there was an improving move
+     */
+    private boolean findBestMove(int routeIdx) {
+        bestDistanceChange = -EPSILON;
+        for (int i = 1; i < solution.routeSize(routeIdx) - 1; i++) {
+            for (int otherRouteIdx = 0; otherRouteIdx < solution.numRoutes(); otherRouteIdx++) {
+                if (otherRouteIdx == routeIdx)
+                    continue;
+                for (int j = 1; j < solution.routeSize(otherRouteIdx); j++) {
+                    relocateMove.set(solution, instance, routeIdx, i, otherRouteIdx, j);
+                    if (relocateMove.isFeasible && relocateMove.distanceChange < bestDistanceChange)
+                        recordBestMove(true, i, otherRouteIdx, j, relocateMove.distanceChange);
+                    if (j == solution.routeSize(otherRouteIdx) - 1)
+                        continue; // the depot at the end of the route can't be swapped
+                    exchangeMove.set(solution, instance, routeIdx, i, otherRouteIdx, j);
+                    if (exchangeMove.isFeasible && exchangeMove.distanceChange < bestDistanceChange)
+                        recordBestMove(false, i, otherRouteIdx, j, exchangeMove.distanceChange);
+                }
+            }
+        }
+        return bestDistanceChange < -EPSILON;
+    }
+
+    private void recordBestMove(boolean isRelocate, int customerIdx, int otherRouteIdx, int otherIdx, double distanceChange) {
+        bestIsRelocate = isRelocate;
+        bestCustomerIdx = customerIdx;
+        bestOtherRouteIdx = otherRouteIdx;
+        bestOtherIdx = otherIdx;
+        bestDistanceChange = distanceChange;
+    }
+
+    private void applyBestMove(int routeIdx) {
+        if (bestIsRelocate)
+            relocateMove.set(solution, instance, routeIdx, bestCustomerIdx, bestOtherRouteIdx, bestOtherIdx).apply(solution, instance);
+        else
+            exchangeMove.set(solution, instance, routeIdx, bestCustomerIdx, bestOtherRouteIdx, bestOtherIdx).apply(solution, instance);
+    }
+
+    /**
+     * Inserts a customer that isn't on any route wherever it's cheapest among the routes that have room for it. If no
+     * route has room for it, it's inserted into a route after moving one of that route's customers (whose demand is at
+     * least what the route would be over capacity by) to another route that has room for that customer, picking the
+     * cheapest such pair of insertions.
+     *
+     * @return whether the customer was inserted
+     */
+    private boolean insertCheapest(int customer) {
+        int bestRouteIdx = cheapestRouteWithRoom(customer, -1);
+        if (bestRouteIdx != -1) {
+            insertAt(bestRouteIdx, cheapestInsertionIdx(customer, bestRouteIdx), customer);
+            return true;
+        }
+
+        int demand = instance.demandOfCustomer[customer];
+        int bestMoved = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int r = 0; r < solution.numRoutes(); r++) {
+            int overload = solution.routeLoad[r] + demand - instance.getVehicleCapacity();
+            double insertionCost = insertionCost(customer, r, cheapestInsertionIdx(customer, r));
+            for (int i = 1; i < solution.routeSize(r) - 1; i++) {
+                int moved = solution.customerAt(r, i);
+                if (instance.demandOfCustomer[moved] < overload)
+                    continue;
+                int movedRouteIdx = cheapestRouteWithRoom(moved, r);
+                if (movedRouteIdx == -1)
+                    continue;
+                int prev = solution.customerAt(r, i - 1);
+                int next = solution.customerAt(r, i + 1);
+                double cost = insertionCost + instance.distance.get(prev, next) - instance.distance.get(prev, moved)
+                        - instance.distance.get(moved, next)
+                        + insertionCost(moved, movedRouteIdx, cheapestInsertionIdx(moved, movedRouteIdx));
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestMoved = moved;
+                }
+            }
+        }
+        if (bestMoved == -1)
+            return false;
+
+        // the moved customer's route now has room for the customer, and its new route still has room for it
+        takeOffRoute(bestMoved);
+        int routeIdx = cheapestRouteWithRoom(customer, -1);
+        insertAt(routeIdx, cheapestInsertionIdx(customer, routeIdx), customer);
+        int movedRouteIdx = cheapestRouteWithRoom(bestMoved, -1);
+        insertAt(movedRouteIdx, cheapestInsertionIdx(bestMoved, movedRouteIdx), bestMoved);
+        return true;
+    }
+
+    /**
+     * @return the route (other than excludedRouteIdx) with room for the customer where inserting it is cheapest, or
+     * -1 if no route has room for it
+     */
+    private int cheapestRouteWithRoom(int customer, int excludedRouteIdx) {
+        int demand = instance.demandOfCustomer[customer];
+        int bestRouteIdx = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int r = 0; r < solution.numRoutes(); r++) {
+            if (r == excludedRouteIdx || solution.routeLoad[r] + demand > instance.getVehicleCapacity())
+                continue;
+            double cost = insertionCost(customer, r, cheapestInsertionIdx(customer, r));
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestRouteIdx = r;
+            }
+        }
+        return bestRouteIdx;
+    }
+
+    // the position of the route where inserting the customer is cheapest (regardless of the route's load)
+    private int cheapestInsertionIdx(int customer, int routeIdx) {
+        int bestCustomerIdx = 1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int i = 1; i < solution.routeSize(routeIdx); i++) {
+            double cost = insertionCost(customer, routeIdx, i);
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestCustomerIdx = i;
+            }
+        }
+        return bestCustomerIdx;
+    }
+
+    // change in distance when the customer is inserted before the location at a position of a route
+    private double insertionCost(int customer, int routeIdx, int customerIdx) {
+        int before = solution.customerAt(routeIdx, customerIdx - 1);
+        int after = solution.customerAt(routeIdx, customerIdx);
+        return instance.distance.get(before, customer) + instance.distance.get(customer, after)
+                - instance.distance.get(before, after);
+    }
+
+    // inserts a customer before the location at a position of a route
+    private void insertAt(int routeIdx, int customerIdx, int customer) {
+        solution.totalDistance += insertionCost(customer, routeIdx, customerIdx);
+        solution.insertCustomer(routeIdx, customerIdx, customer);
+        solution.updateRouteCache(routeIdx, customerIdx, instance);
+        changedRoutes[routeIdx] = true;
+    }
+
+    // removes a customer from its route
+    private void takeOffRoute(int customer) {
+        int routeIdx = solution.routeOf(customer);
+        int customerIdx = solution.positionOf(customer);
+        int prev = solution.customerAt(routeIdx, customerIdx - 1);
+        int next = solution.customerAt(routeIdx, customerIdx + 1);
+        solution.totalDistance += instance.distance.get(prev, next) - instance.distance.get(prev, customer)
+                - instance.distance.get(customer, next);
+        solution.removeCustomer(routeIdx, customerIdx);
+        solution.updateRouteCache(routeIdx, customerIdx, instance);
+        changedRoutes[routeIdx] = true;
+    }
+
+    private void checkCustomer(int customer) {
+        if (customer < 1 || customer >= instance.getNumCustomers())
+            throw new IllegalArgumentException("no customer " + customer + " (customers are 1 ... " + (instance.getNumCustomers() - 1) + ")");
+    }
+
+    private void checkDemand(int demand) {
+        if (demand < 0 || demand > instance.getVehicleCapacity())
+            throw new IllegalArgumentException("a customer's demand must be between 0 and the vehicle capacity, got " + demand);
+    }
+}
@@ -0,0 +1,17 @@
+package solver.ls;
+
+/**
+ * Notified by VRPLocalSearch every time the search finds a new best solution (see
+ * VRPLocalSearch.addIncumbentListener), so callers can act on good solutions while the search is still running.
+ * Listeners are called on the search thread that found the solution (one at a time, and with strictly decreasing
+ * distances), so they should return quickly.
+ */
+public interface IncumbentListener {
+
+    /**
+     * @param solution: the new incumbent (which must not be modified -- copy it to keep working on it)
+     * @param time: seconds since the solver's timer was started
+     * @param trajectoryIdx: the search trajectory that found the solution (-1 for the initial solution)
+     */
+    void onNewIncumbent(Solution solution, double time, int trajectoryIdx);
+}
@@ -0,0 +1,41 @@
+package solver.ls;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams every new incumbent as a JSON line (in the same format as the final result line printed by Main) to a
+ * file or to standard output. Each line is flushed as soon as it is written, so even a run that is killed leaves
+ * its best solution behind (as the last line).
+ */
+public class IncumbentStreamWriter implements IncumbentListener, AutoCloseable {
+
+    public static final String STANDARD_OUTPUT = "-";
+
+    private final String instanceName;
+    private final PrintStream out;
+    private final boolean ownsStream; // whether closing this writer closes the stream (not for standard output)
+
+    /**
+     * @param file: the file to write to (it is overwritten), or "-" for standard output
+     */
+    public IncumbentStreamWriter(String file, String instanceName) throws IOException {
+        this.instanceName = instanceName;
+        this.ownsStream = !file.equals(STANDARD_OUTPUT);
+        this.out = ownsStream ? new PrintStream(new FileOutputStream(file), false, StandardCharsets.UTF_8) : System.out;
+    }
+
+    @Override
+    public synchronized void onNewIncumbent(Solution solution, double time, int trajectoryIdx) {
+        out.println(Main.resultLine(instanceName, time, solution.totalDistance, solution));
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (ownsStream)
+            out.close();
+    }
+}
@@ -0,0 +1,273 @@
+package solver.ls;
+
+import solver.ls.MovingStrategy.Move;
+import solver.ls.MovingStrategy.OrOptMove;
+import solver.ls.MovingStrategy.TwoOptMove;
+
+/**
+ * Systematically improves the order of the customers within each route (rather than sampling random moves like the
+ * moving strategies): it applies improving 2-opt moves (reversing a segment) and Or-opt moves (moving a segment of up
+ * to 3 customers, possibly reversed) until no such move improves the route.
+ * Moves are only tried around customers whose surroundings changed ("don't look bits": a customer around which no
+ * improving move was found is skipped until one of its arcs changes), and only between a customer and its nearest
+ * customers on the same route when granular neighborhoods are enabled. Every move is evaluated in O(1).
+ * Optimized routes are remembered in the instance's RouteCache, so a route that was optimized before (by any
+ * optimizer of the instance) is put straight back into the order it was optimized into, without evaluating any moves.
+ */
+public class IntraRouteOptimizer {
+
+    private static final int MAX_SEGMENT_LENGTH = 3;
+    private static final double EPSILON = 1e-9; // moves must improve by more than this (so rounding can't cycle)
+
+    private final VRPLocalSearch instance;
+    private final boolean firstImprovement; // apply the first improving move found around a customer (rather than the best)
+
+    // reused for every move applied (so optimizing doesn't allocate)
+    private final TwoOptMove twoOptMove = new TwoOptMove();
+    private final OrOptMove orOptMove = new OrOptMove();
+    private final int[] changedArcEnds = new int[6];
+
+    private boolean[] dontLook = new boolean[0];
+    private int[] queue = new int[0]; // customers whose don't look bit is off, in a circular buffer
+    private int queueHead;
+    private int queueSize;
+
+    // the best move found around the current customer (positions are within the route being optimized)
+    private boolean bestIsTwoOpt;
+    private int bestStartIdx;     // first position of the reversed (2-opt) or moved (Or-opt) segment
+    private int bestEndIdx;       // 2-opt only: last position of the reversed segment
+    private int bestLength;       // Or-opt only: length of the moved segment
+    private int bestInsertionIdx; // Or-opt only
+    private boolean bestReversed; // Or-opt only
+    private double bestDistanceChange;
+
+    public IntraRouteOptimizer(VRPLocalSearch instance, boolean firstImprovement) {
+        this.instance = instance;
+        this.firstImprovement = firstImprovement;
+    }
+
+    /**
+     * Improves every route of the solution (in place)
+     *
+     * @return the change in the solution's total distance (never positive)
+     */
+    public double optimize(Solution solution) {
+        double distanceChange = 0;
+        for (int r = 0; r < solution.numRoutes(); r++) {
+            distanceChange += optimizeRoute(solution, r);
+        }
+        return distanceChange;
+    }
+
+    /**
+     * Improves a single route of the solution (in place)
+     *
+     * @return the change in the solution's total distance (never positive)
+     */
+    public double optimizeRoute(Solution solution, int routeIdx) {
+        if (solution.routeSize(routeIdx) < 5)
+            return 0; // with fewer than 3 customers, every 2-opt or Or-opt move just reverses the route
+        long routeHash = solution.routeHash[routeIdx];
+        RouteCache routeCache = instance.routeCache;
+        if (routeCache.isOptimized(routeHash))
+            return 0;
+        int[] optimizedOrder = routeCache.optimizedOrder(routeHash);
+        if (optimizedOrder != null && hasSameCustomers(solution, routeIdx, optimizedOrder))
+            return reorder(solution, routeIdx, optimizedOrder);
+
+        if (dontLook.length < solution.customerRoute.length) {
+            dontLook = new boolean[solution.customerRoute.length];
+            queue = new int[solution.customerRoute.length];
+        }
+
+        queueHead = 0;
+        queueSize = 0;
+        for (int i = 1; i < solution.routeSize(routeIdx) - 1; i++) {
+            dontLook[solution.customerAt(routeIdx, i)] = true;
+        }
+        for (int i = 1; i < solution.routeSize(routeIdx) - 1; i++) {
+            activate(solution.customerAt(routeIdx, i));
+        }
+
+        double distanceChange = 0;
+        while (queueSize > 0) {
+            int customer = queue[queueHead];
+            queueHead = (queueHead + 1) % queue.length;
+            queueSize--;
+            dontLook[customer] = true;
+
+            bestDistanceChange = -EPSILON;
+            findMove(solution, routeIdx, customer);
+            if (bestDistanceChange == -EPSILON)
+                continue; // no improving move around this customer
+
+            distanceChange += applyBestMove(solution, routeIdx);
+        }
+        routeCache.put(routeHash, solution, routeIdx);
+        return distanceChange;
+    }
+
+    // guards against the (1 in 2^64) chance of another route having the same hash
+    private static boolean hasSameCustomers(Solution solution, int routeIdx, int[] customers) {
+        if (customers.length != solution.routeSize(routeIdx) - 2)
+            return false;
+        for (int customer : customers) {
+            if (customer >= solution.customerRoute.length || solution.routeOf(customer) != routeIdx)
+                return false;
+        }
+        return true; // a route never visits a customer twice, so these are all of the route's customers
+    }
+
+    /**
+     * Puts the customers of a route in the given order
+     *
+     * @return the change in the solution's total distance
+     */
+    private double reorder(Solution solution, int routeIdx, int[] customers) {
+        double previousLength = solution.routeLength[routeIdx];
+        for (int i = 0; i < customers.length; i++) {
+            solution.setCustomerAt(routeIdx, i + 1, customers[i]);
+        }
+        solution.updateRouteCache(routeIdx, instance);
+        double distanceChange = solution.routeLength[routeIdx] - previousLength;
+        solution.totalDistance += distanceChange;
+        return distanceChange;
+    }
+
+    // turns a customer's don't look bit off (queueing it to be looked at again)
+    private void activate(int customer) {
+        if (customer == 0 || !dontLook[customer])
+            return;
+        dontLook[customer] = false;
+        queue[(queueHead + queueSize) % queue.length] = customer;
+        queueSize++;
+    }
+
+    /**
+     * Applies the best move found, and turns off the don't look bits of the customers at the ends of the arcs it changes
+     *
+     * @return the move's distance change
+     */
+    private double applyBestMove(Solution solution, int routeIdx) {
+        Move move;
+        int numChangedArcEnds;
+        if (bestIsTwoOpt) {
+            move = twoOptMove.set(solution, instance, routeIdx, bestStartIdx, bestEndIdx);
+            numChangedArcEnds = setChangedArcEnds(bestStartIdx - 1, bestStartIdx, bestEndIdx, bestEndIdx + 1, 0, 0);
+        } else {
+            move = orOptMove.set(solution, instance, routeIdx, bestStartIdx, bestLength, bestInsertionIdx, bestReversed);
+            numChangedArcEnds = setChangedArcEnds(bestStartIdx - 1, bestStartIdx, bestStartIdx + bestLength - 1,
+                    bestStartIdx + bestLength, bestInsertionIdx - 1, bestInsertionIdx);
+        }
+        for (int k = 0; k < numChangedArcEnds; k++) {
+            changedArcEnds[k] = solution.customerAt(routeIdx, changedArcEnds[k]); // the customers, before they move
+        }
+
+        move.apply(solution, instance);
+        for (int k = 0; k < numChangedArcEnds; k++) {
+            activate(changedArcEnds[k]);
+        }
+        return move.distanceChange;
+    }
+
+    // records the positions at the ends of the changed arcs (2-opt moves only change 4 of them: the last 2 are ignored)
+    private int setChangedArcEnds(int idx1, int idx2, int idx3, int idx4, int idx5, int idx6) {
+        changedArcEnds[0] = idx1;
+        changedArcEnds[1] = idx2;
+        changedArcEnds[2] = idx3;
+        changedArcEnds[3] = idx4;
+        changedArcEnds[4] = idx5;
+        changedArcEnds[5] = idx6;
+        return bestIsTwoOpt ? 4 : 6;
+    }
+
+    /**
+     * Looks for improving moves that put the customer next to one of its candidate customers on the same route
+     *
+     * @return whether to stop looking (in first-improvement mode, once an improving move is found)
+     */
+    private boolean findMove(Solution solution, int routeIdx, int customer) {
+        NeighborLists neighborLists = instance.neighborLists;
+        if (neighborLists != null) {
+            for (int rank = 0; rank < neighborLists.numNeighbors(); rank++) {
+                int neighbor = neighborLists.get(customer, rank);
+                if (solution.routeOf(neighbor) == routeIdx && tryMoves(solution, routeIdx, customer, neighbor))
+                    return true;
+            }
+        } else {
+            for (int i = 1; i < solution.routeSize(routeIdx) - 1; i++) {
+                int neighbor = solution.customerAt(routeIdx, i);
+                if (neighbor != customer && tryMoves(solution, routeIdx, customer, neighbor))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates the moves that create an arc between the customer and the neighbor
+     *
+     * @return whether to stop looking (in first-improvement mode, once an improving move is found)
+     */
+    private boolean tryMoves(Solution solution, int routeIdx, int customer, int neighbor) {
+        int i = solution.positionOf(customer);
+        int j = solution.positionOf(neighbor);
+
+        // 2-opt: the neighbor becomes the customer's successor (or predecessor), reversing the segment in between
+        if (j > i + 1 && (considerTwoOpt(solution, routeIdx, i + 1, j) || considerTwoOpt(solution, routeIdx, i, j - 1)))
+            return true;
+        if (j < i - 1 && (considerTwoOpt(solution, routeIdx, j + 1, i) || considerTwoOpt(solution, routeIdx, j, i - 1)))
+            return true;
+
+        // Or-opt: the segment starting at the customer moves next to the neighbor (on either side of it, either way round)
+        int lastCustomerIdx = solution.routeSize(routeIdx) - 2;
+        for (int length = 1; length <= MAX_SEGMENT_LENGTH && i + length - 1 <= lastCustomerIdx; length++) {
+            if (j >= i && j < i + length)
+                break; // the neighbor is in the segment (and would be in any longer one)
+            for (int insertionIdx = j; insertionIdx <= j + 1; insertionIdx++) {
+                if (insertionIdx >= i && insertionIdx <= i + length)
+                    continue; // that's where the segment already is
+                if (considerOrOpt(solution, routeIdx, i, length, insertionIdx, false))
+                    return true;
+                if (length > 1 && considerOrOpt(solution, routeIdx, i, length, insertionIdx, true))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether to stop looking (in first-improvement mode, once an improving move is found)
+     */
+    private boolean considerTwoOpt(Solution solution, int routeIdx, int startIdx, int endIdx) {
+        double distanceChange = TwoOptMove.distanceChange(instance,
+                solution.customerAt(routeIdx, startIdx - 1), solution.customerAt(routeIdx, startIdx),
+                solution.customerAt(routeIdx, endIdx), solution.customerAt(routeIdx, endIdx + 1));
+        if (distanceChange >= bestDistanceChange)
+            return false;
+        bestIsTwoOpt = true;
+        bestStartIdx = startIdx;
+        bestEndIdx = endIdx;
+        bestDistanceChange = distanceChange;
+        return firstImprovement;
+    }
+
+    /**
+     * @return whether to stop looking (in first-improvement mode, once an improving move is found)
+     */
+    private boolean considerOrOpt(Solution solution, int routeIdx, int startIdx, int length, int insertionIdx, boolean reversed) {
+        double distanceChange = OrOptMove.distanceChange(instance,
+                solution.customerAt(routeIdx, startIdx - 1), solution.customerAt(routeIdx, startIdx),
+                solution.customerAt(routeIdx, startIdx + length - 1), solution.customerAt(routeIdx, startIdx + length),
+                solution.customerAt(routeIdx, insertionIdx - 1), solution.customerAt(routeIdx, insertionIdx), reversed);
+        if (distanceChange >= bestDistanceChange)
+            return false;
+        bestIsTwoOpt = false;
+        bestStartIdx = startIdx;
+        bestLength = length;
+        bestInsertionIdx = insertionIdx;
+        bestReversed = reversed;
+        bestDistanceChange = distanceChange;
+        return firstImprovement;
+    }
+}
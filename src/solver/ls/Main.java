@@ -1,19 +1,29 @@
 package solver.ls;
 
-import solver.ls.MovingStrategy.RandomCustomerMovement;
-import solver.ls.MovingStrategy.TwoOptWithCrossRouteCustomerMove;
-
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
 public class Main {
     public static void main(String[] args) {
         if (args.length == 0) {
-            System.out.println("Usage: java Main <file>");
+            System.out.println("Usage: java Main <file> [options]");
+            System.out.println(SolverOptions.USAGE);
             return;
         }
 
         String input = args[0];
+        SolverOptions options;
+        try {
+            options = SolverOptions.parse(args, 1);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.out.println(SolverOptions.USAGE);
+            System.exit(1);
+            return;
+        }
+        if (options.ignoredOptionsNotice() != null)
+            System.out.println(options.ignoredOptionsNotice());
         Path path = Paths.get(input);
         String filename = path.getFileName().toString();
         System.out.println("Instance: " + input);
@@ -21,21 +31,44 @@ public class Main {
         Timer watch = new Timer();
         watch.start();
 
-        VRPLocalSearch solver = new VRPLocalSearch(input, watch);
+        VRPLocalSearch solver;
+        try {
+            solver = new VRPLocalSearch(input, watch, options);
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
         Solution solution = solver.localSearch();
         watch.stop();
+        if (solution == null)
+            System.exit(1);
 
         for (int i = 0; i < solver.numVehicles; i++) {
-            for (int custNum : solution.routes.get(i)) {
-                System.out.print(custNum + " ");
+            for (int customerIdx = 0; customerIdx < solution.routeSize(i); customerIdx++) {
+                System.out.print(solution.customerAt(i, customerIdx) + " ");
             }
             System.out.println();
         }
         double totalDistance = solver.solutionTotalDistance(solution);
 
-        System.out.println("{\"Instance\": \"" + filename +
-                "\", \"Time\": " + String.format("%.2f", watch.getTime()) +
+        System.out.println(resultLine(filename, watch.getTime(), totalDistance, solution));
+    }
+
+    /**
+     * @return the line recorded in the results log for a solved instance
+     */
+    static String resultLine(String filename, double time, double totalDistance, Solution solution) {
+        return "{\"Instance\": \"" + filename +
+                "\", \"Time\": " + String.format("%.2f", time) +
                 ", \"Result\": " + String.format("%.2f", totalDistance) +
-                ", \"Solution\": \"" + solution.getSolutionString() + "\"}");
+                ", \"Solution\": \"" + solution.getSolutionString() + "\"}";
+    }
+
+    /**
+     * @return the line recorded in the results log for an instance that couldn't be solved
+     */
+    static String failureLine(String filename) {
+        return "{\"Instance\": \"" + filename + "\", \"Time\": \"--\", \"Result\": \"--\"}";
     }
 }
@@ -0,0 +1,111 @@
+package solver.ls.MovingStrategy;
+
+import solver.ls.NeighborLists;
+import solver.ls.Solution;
+import solver.ls.VRPLocalSearch;
+
+import java.util.Random;
+
+// Randomly picks two short segments of consecutive customers in different routes and exchanges them (CROSS-exchange)
+// example: 0 -> 1 -> 2 -> 3 -> 0 and 0 -> 4 -> 5 -> 6 -> 0 might become 0 -> 1 -> 5 -> 6 -> 0 and 0 -> 4 -> 2 -> 3 -> 0
+public class CrossExchange implements MovingStrategy {
+
+    private static final int MAX_SEGMENT_LENGTH = 3;
+
+    private final Random random;
+    private final MoveBuffer<CrossExchangeMove> moves = new MoveBuffer<>(CrossExchangeMove::new);
+
+    public CrossExchange() {
+        this(950);
+    }
+
+    public CrossExchange(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Picks a random segment of up to 3 customers from a random route, and exchanges it with a random segment of up
+     * to 3 customers from another random route
+     *
+     * @param currentSolution: the solution from which we are moving
+     * @return the move that exchanges the segments, or null if no exchange could be picked
+     */
+    public Move proposeMove(Solution currentSolution, VRPLocalSearch instance) {
+        final int NUM_TRIES = 5;
+        int numVehicles = currentSolution.numRoutes();
+
+        int route1Idx = random.nextInt(numVehicles);
+        for (int i = 0; i < NUM_TRIES && currentSolution.routeSize(route1Idx) <= 2; i++) {
+            route1Idx = random.nextInt(numVehicles);
+        }
+        if (currentSolution.routeSize(route1Idx) <= 2)
+            return null;
+
+        // with neighbor lists, exchange segments so that a customer ends up next to one of its nearest neighbors instead
+        if (instance.neighborLists != null)
+            return proposeGranularExchange(currentSolution, instance, route1Idx);
+
+        int route2Idx = random.nextInt(numVehicles);
+        for (int i = 0; i < NUM_TRIES && (route2Idx == route1Idx || currentSolution.routeSize(route2Idx) <= 2); i++) {
+            route2Idx = random.nextInt(numVehicles);
+        }
+        if (route2Idx == route1Idx || currentSolution.routeSize(route2Idx) <= 2)
+            return null;
+
+        int segment1Length = pickSegmentLength(currentSolution, route1Idx);
+        int segment1StartIdx = 1 + random.nextInt(currentSolution.routeSize(route1Idx) - 1 - segment1Length);
+        int segment2Length = pickSegmentLength(currentSolution, route2Idx);
+        int segment2StartIdx = 1 + random.nextInt(currentSolution.routeSize(route2Idx) - 1 - segment2Length);
+        return moves.next().set(currentSolution, instance, route1Idx, segment1StartIdx, segment1Length,
+                route2Idx, segment2StartIdx, segment2Length);
+    }
+
+    /**
+     * Picks a random customer from the given route and one of its nearest neighbors (in a different route), and
+     * exchanges a segment starting at the customer with a segment right after the neighbor (or a segment ending at
+     * the customer with a segment right before the neighbor), so that the customer ends up next to the neighbor
+     */
+    private Move proposeGranularExchange(Solution currentSolution, VRPLocalSearch instance, int route1Idx) {
+        NeighborLists neighborLists = instance.neighborLists;
+        int customerIdx = 1 + random.nextInt(currentSolution.routeSize(route1Idx) - 2);
+        int customer = currentSolution.customerAt(route1Idx, customerIdx);
+        int neighbor = neighborLists.get(customer, random.nextInt(neighborLists.numNeighbors()));
+        int route2Idx = currentSolution.routeOf(neighbor);
+        if (route2Idx == route1Idx)
+            return null;
+
+        int lastCustomer1Idx = currentSolution.routeSize(route1Idx) - 2;
+        int lastCustomer2Idx = currentSolution.routeSize(route2Idx) - 2;
+        int neighborIdx = currentSolution.positionOf(neighbor);
+        int segment1Length = pickSegmentLength(currentSolution, route1Idx);
+        int segment2Length = pickSegmentLength(currentSolution, route2Idx);
+        int segment1StartIdx;
+        int segment2StartIdx;
+        if (random.nextBoolean()) { // neighbor -> [customer ...]
+            segment1StartIdx = customerIdx;
+            segment2StartIdx = neighborIdx + 1;
+            segment1Length = Math.min(segment1Length, lastCustomer1Idx - segment1StartIdx + 1);
+            segment2Length = Math.min(segment2Length, lastCustomer2Idx - segment2StartIdx + 1);
+        } else { // [... customer] -> neighbor
+            segment1Length = Math.min(segment1Length, customerIdx);
+            segment2Length = Math.min(segment2Length, neighborIdx - 1);
+            segment1StartIdx = customerIdx - segment1Length + 1;
+            segment2StartIdx = neighborIdx - segment2Length;
+        }
+        if (segment2Length <= 0)
+            return null; // the neighbor is at the end of its route
+
+        return moves.next().set(currentSolution, instance, route1Idx, segment1StartIdx, segment1Length,
+                route2Idx, segment2StartIdx, segment2Length);
+    }
+
+    // a random segment length that fits in the route (which has at least one customer)
+    private int pickSegmentLength(Solution currentSolution, int routeIdx) {
+        return 1 + random.nextInt(Math.min(MAX_SEGMENT_LENGTH, currentSolution.routeSize(routeIdx) - 2));
+    }
+
+    @Override
+    public void retain(Move move) {
+        moves.retain(move);
+    }
+}
@@ -0,0 +1,99 @@
+package solver.ls.MovingStrategy;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+/**
+ * Exchanges two segments of consecutive customers that are on different routes (CROSS-exchange), keeping the order
+ * of each segment.
+ * The loads of the segments come from the cached cumulative loads, and the distance travelled within each segment
+ * doesn't change (only the four arcs at the ends of the segments do), so both feasibility and the distance change
+ * are computed in O(1).
+ */
+public class CrossExchangeMove extends Move {
+
+    private int route1Idx;
+    private int segment1StartIdx;
+    private int segment1Length;
+    private int route2Idx;
+    private int segment2StartIdx;
+    private int segment2Length;
+
+    /**
+     * An unset move, which has to be set before it is used (see MoveBuffer)
+     */
+    public CrossExchangeMove() {
+    }
+
+    public CrossExchangeMove(Solution currentSolution, VRPInstance instance, int route1Idx, int segment1StartIdx,
+                             int segment1Length, int route2Idx, int segment2StartIdx, int segment2Length) {
+        set(currentSolution, instance, route1Idx, segment1StartIdx, segment1Length, route2Idx, segment2StartIdx, segment2Length);
+    }
+
+    /**
+     * Sets this move up from scratch (so that the same object can be reused for another proposal)
+     *
+     * @return this move
+     */
+    public CrossExchangeMove set(Solution currentSolution, VRPInstance instance, int route1Idx, int segment1StartIdx,
+                                 int segment1Length, int route2Idx, int segment2StartIdx, int segment2Length) {
+        this.route1Idx = route1Idx;
+        this.segment1StartIdx = segment1StartIdx;
+        this.segment1Length = segment1Length;
+        this.route2Idx = route2Idx;
+        this.segment2StartIdx = segment2StartIdx;
+        this.segment2Length = segment2Length;
+
+        // each route loses the demand of its own segment and gains the demand of the other one
+        int demandChange = segmentLoad(currentSolution, route2Idx, segment2StartIdx, segment2Length)
+                - segmentLoad(currentSolution, route1Idx, segment1StartIdx, segment1Length);
+        int vehicleCapacity = instance.getVehicleCapacity();
+        this.isFeasible = currentSolution.routeLoad[route1Idx] + demandChange <= vehicleCapacity
+                && currentSolution.routeLoad[route2Idx] - demandChange <= vehicleCapacity;
+        if (!this.isFeasible)
+            return this; // no need to compute the distance change -- infeasible moves are discarded
+
+        // example: p1 -> [s1 ... e1] -> q1 and p2 -> [s2 ... e2] -> q2 become p1 -> [s2 ... e2] -> q1 and p2 -> [s1 ... e1] -> q2
+        int p1 = currentSolution.customerAt(route1Idx, segment1StartIdx - 1);
+        int s1 = currentSolution.customerAt(route1Idx, segment1StartIdx);
+        int e1 = currentSolution.customerAt(route1Idx, segment1StartIdx + segment1Length - 1);
+        int q1 = currentSolution.customerAt(route1Idx, segment1StartIdx + segment1Length);
+        int p2 = currentSolution.customerAt(route2Idx, segment2StartIdx - 1);
+        int s2 = currentSolution.customerAt(route2Idx, segment2StartIdx);
+        int e2 = currentSolution.customerAt(route2Idx, segment2StartIdx + segment2Length - 1);
+        int q2 = currentSolution.customerAt(route2Idx, segment2StartIdx + segment2Length);
+        this.distanceChange = instance.distance.get(p1, s2) + instance.distance.get(e2, q1)
+                + instance.distance.get(p2, s1) + instance.distance.get(e1, q2)
+                - instance.distance.get(p1, s1) - instance.distance.get(e1, q1)
+                - instance.distance.get(p2, s2) - instance.distance.get(e2, q2);
+        return this;
+    }
+
+    // the total demand of the customers at positions startIdx ... startIdx + length - 1 of a route
+    private static int segmentLoad(Solution solution, int routeIdx, int startIdx, int length) {
+        int start = solution.routeStart[routeIdx];
+        return solution.prefixLoad[start + startIdx + length - 1] - solution.prefixLoad[start + startIdx - 1];
+    }
+
+    @Override
+    public long hashChange(Solution solution) {
+        int p1 = solution.customerAt(route1Idx, segment1StartIdx - 1);
+        int s1 = solution.customerAt(route1Idx, segment1StartIdx);
+        int e1 = solution.customerAt(route1Idx, segment1StartIdx + segment1Length - 1);
+        int q1 = solution.customerAt(route1Idx, segment1StartIdx + segment1Length);
+        int p2 = solution.customerAt(route2Idx, segment2StartIdx - 1);
+        int s2 = solution.customerAt(route2Idx, segment2StartIdx);
+        int e2 = solution.customerAt(route2Idx, segment2StartIdx + segment2Length - 1);
+        int q2 = solution.customerAt(route2Idx, segment2StartIdx + segment2Length);
+        return Solution.arcKey(p1, s2) + Solution.arcKey(e2, q1) + Solution.arcKey(p2, s1) + Solution.arcKey(e1, q2)
+                - Solution.arcKey(p1, s1) - Solution.arcKey(e1, q1) - Solution.arcKey(p2, s2) - Solution.arcKey(e2, q2);
+    }
+
+    @Override
+    protected void updateRoutes(Solution solution, VRPInstance instance) {
+        solution.swapSegments(route1Idx, segment1StartIdx, segment1StartIdx + segment1Length,
+                route2Idx, segment2StartIdx, segment2StartIdx + segment2Length);
+        solution.updateRouteCache(route1Idx, segment1StartIdx, instance);
+        solution.updateRouteCache(route2Idx, segment2StartIdx, instance);
+    }
+}
@@ -1,72 +1,94 @@
 package solver.ls.MovingStrategy;
 
+import solver.ls.NeighborLists;
 import solver.ls.Solution;
 import solver.ls.VRPLocalSearch;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
 
 // Randomly picks two customers in different routes and then exchanges their position.
 // For the whole neighborhood, this repeats the process above numVehicles/2 times
 public class CrossRouteCustomerExchange implements MovingStrategy {
 
-    private final Random random = new Random(250);
+    private final Random random;
+    private final MoveBuffer<ExchangeMove> moves = new MoveBuffer<>(ExchangeMove::new);
 
-    public Solution getSingleNeighbor(Solution currentSolution, VRPLocalSearch instance) {
-        int numVehicles = currentSolution.routes.size();
-        final int NUM_TRIES = 5;
-        List<Integer> emptyList = new ArrayList<>();
+    public CrossRouteCustomerExchange() {
+        this(250);
+    }
+
+    public CrossRouteCustomerExchange(long seed) {
+        this.random = new Random(seed);
+    }
 
-        Solution newSolution = currentSolution.copy();
+    public Move proposeMove(Solution currentSolution, VRPLocalSearch instance) {
+        int numVehicles = currentSolution.numRoutes();
+        final int NUM_TRIES = 5;
 
         // pick the route for customer 1 (route must have length > 2 -- at least 1 customer on the route)
         int customer1Route = random.nextInt(numVehicles);
         int i = 0;
-        while (i < NUM_TRIES && currentSolution.routes.get(customer1Route).size() <= 2) {
+        while (i < NUM_TRIES && currentSolution.routeSize(customer1Route) <= 2) {
             customer1Route = random.nextInt(numVehicles);
             i++;
         }
-        if (currentSolution.routes.get(customer1Route).size() <= 2)
-            return newSolution;
+        if (currentSolution.routeSize(customer1Route) <= 2)
+            return null;
+
+        // with neighbor lists, swap customer 1 with a customer next to one of its nearest neighbors instead
+        if (instance.neighborLists != null)
+            return proposeGranularExchange(currentSolution, instance, customer1Route);
 
         // pick the route for customer 2
         int customer2Route = random.nextInt(numVehicles);
         i = 0;
-        while (i < NUM_TRIES && (customer1Route == customer2Route || currentSolution.routes.get(customer2Route).size() <= 2)) {
+        while (i < NUM_TRIES && (customer1Route == customer2Route || currentSolution.routeSize(customer2Route) <= 2)) {
             customer2Route = random.nextInt(numVehicles);
             i++;
         }
-        if (currentSolution.routes.get(customer2Route).size() <= 2 || customer1Route == customer2Route)
-            return newSolution;
+        if (currentSolution.routeSize(customer2Route) <= 2 || customer1Route == customer2Route)
+            return null;
 
         // pick the customer from route 1
-        int route1CustomerIdx = 1 + random.nextInt(currentSolution.routes.get(customer1Route).size() - 2);
+        int route1CustomerIdx = 1 + random.nextInt(currentSolution.routeSize(customer1Route) - 2);
         // pick the customer from route 2
-        int route2CustomerIdx = 1 + random.nextInt(currentSolution.routes.get(customer2Route).size() - 2);
-
-        int route1Customer = currentSolution.routes.get(customer1Route).get(route1CustomerIdx);
-        int route2Customer = currentSolution.routes.get(customer2Route).get(route2CustomerIdx);
-
-        // exchange the two customers
-        newSolution.routes.get(customer1Route).set(route1CustomerIdx, route2Customer);
-        newSolution.routes.get(customer2Route).set(route2CustomerIdx, route1Customer);
-
-        // run verification -- we only need to check that the two routes that were changed are still valid
-        List<Integer> newRoute1 = newSolution.routes.get(customer1Route);
-        List<Integer> newRoute2 = newSolution.routes.get(customer2Route);
-        newSolution.isFeasible = this.isRouteFeasible(newRoute1, instance) && this.isRouteFeasible(newRoute2, instance);
-        if (!newSolution.isFeasible) {
-            // no need to update total distance here -- we only consider feasible solutions so this will be discarded
-            return newSolution;
-        }
+        int route2CustomerIdx = 1 + random.nextInt(currentSolution.routeSize(customer2Route) - 2);
 
-        // compute new total distance -- we can compute this by seeing the change in distance for the two
-        // modified routes
-        List<Integer> oldRoute1 = currentSolution.routes.get(customer1Route);
-        List<Integer> oldRoute2 = currentSolution.routes.get(customer2Route);
-        newSolution.totalDistance += this.routeDistanceChange(oldRoute1, newRoute1, instance) + this.routeDistanceChange(oldRoute2, newRoute2, instance);
+        // exchange the two customers -- only the two routes that are changed need to be checked and re-measured
+        return moves.next().set(currentSolution, instance, customer1Route, route1CustomerIdx, customer2Route, route2CustomerIdx);
+    }
+
+    /**
+     * Picks a random customer from the given route, and exchanges it with a customer right next to one of its
+     * nearest neighbors (in a different route), so that the customer ends up next to that neighbor
+     */
+    private Move proposeGranularExchange(Solution currentSolution, VRPLocalSearch instance, int customer1Route) {
+        final int NUM_TRIES = 5;
+        NeighborLists neighborLists = instance.neighborLists;
+        int route1CustomerIdx = 1 + random.nextInt(currentSolution.routeSize(customer1Route) - 2);
+        int customer1 = currentSolution.customerAt(customer1Route, route1CustomerIdx);
+
+        for (int i = 0; i < NUM_TRIES; i++) {
+            int neighbor = neighborLists.get(customer1, random.nextInt(neighborLists.numNeighbors()));
+            int customer2Route = currentSolution.routeOf(neighbor);
+            if (customer2Route == customer1Route)
+                continue;
+
+            // pick the customer before or after the neighbor (whichever side isn't the depot, if one of them is)
+            int neighborIdx = currentSolution.positionOf(neighbor);
+            int route2CustomerIdx = neighborIdx + (random.nextBoolean() ? 1 : -1);
+            if (route2CustomerIdx <= 0 || route2CustomerIdx >= currentSolution.routeSize(customer2Route) - 1)
+                route2CustomerIdx = 2 * neighborIdx - route2CustomerIdx;
+            if (route2CustomerIdx <= 0 || route2CustomerIdx >= currentSolution.routeSize(customer2Route) - 1)
+                continue; // the neighbor is the only customer on its route
+
+            return moves.next().set(currentSolution, instance, customer1Route, route1CustomerIdx, customer2Route, route2CustomerIdx);
+        }
+        return null;
+    }
 
-        return newSolution;
+    @Override
+    public void retain(Move move) {
+        moves.retain(move);
     }
 }
@@ -0,0 +1,91 @@
+package solver.ls.MovingStrategy;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+/**
+ * Swaps the positions of two customers that are on different routes.
+ * Only the arcs around the two customers change, so the distance change is computed in O(1).
+ */
+public class ExchangeMove extends Move {
+
+    private int route1Idx;
+    private int route1CustomerIdx;
+    private int route2Idx;
+    private int route2CustomerIdx;
+
+    /**
+     * An unset move, which has to be set before it is used (see MoveBuffer)
+     */
+    public ExchangeMove() {
+    }
+
+    public ExchangeMove(Solution currentSolution, VRPInstance instance, int route1Idx, int route1CustomerIdx,
+                        int route2Idx, int route2CustomerIdx) {
+        set(currentSolution, instance, route1Idx, route1CustomerIdx, route2Idx, route2CustomerIdx);
+    }
+
+    /**
+     * Sets this move up from scratch (so that the same object can be reused for another proposal)
+     *
+     * @return this move
+     */
+    public ExchangeMove set(Solution currentSolution, VRPInstance instance, int route1Idx, int route1CustomerIdx,
+                            int route2Idx, int route2CustomerIdx) {
+        this.route1Idx = route1Idx;
+        this.route1CustomerIdx = route1CustomerIdx;
+        this.route2Idx = route2Idx;
+        this.route2CustomerIdx = route2CustomerIdx;
+
+        int customer1 = currentSolution.customerAt(route1Idx, route1CustomerIdx);
+        int customer2 = currentSolution.customerAt(route2Idx, route2CustomerIdx);
+
+        // each route loses the demand of its own customer and gains the demand of the other one
+        int vehicleCapacity = instance.getVehicleCapacity();
+        int demandChange = instance.demandOfCustomer[customer2] - instance.demandOfCustomer[customer1];
+        this.isFeasible = currentSolution.routeLoad[route1Idx] + demandChange <= vehicleCapacity
+                && currentSolution.routeLoad[route2Idx] - demandChange <= vehicleCapacity;
+        if (!this.isFeasible)
+            return this; // no need to compute the distance change -- infeasible moves are discarded
+
+        this.distanceChange = replacementChange(currentSolution, route1Idx, route1CustomerIdx, customer2, instance)
+                + replacementChange(currentSolution, route2Idx, route2CustomerIdx, customer1, instance);
+        return this;
+    }
+
+    // change in distance when the customer at customerIdx in the route is replaced by newCustomer
+    private static double replacementChange(Solution solution, int routeIdx, int customerIdx, int newCustomer, VRPInstance instance) {
+        int prev = solution.customerAt(routeIdx, customerIdx - 1);
+        int oldCustomer = solution.customerAt(routeIdx, customerIdx);
+        int next = solution.customerAt(routeIdx, customerIdx + 1);
+        return instance.distance.get(prev, newCustomer) + instance.distance.get(newCustomer, next)
+                - instance.distance.get(prev, oldCustomer) - instance.distance.get(oldCustomer, next);
+    }
+
+    @Override
+    public long hashChange(Solution solution) {
+        int customer1 = solution.customerAt(route1Idx, route1CustomerIdx);
+        int customer2 = solution.customerAt(route2Idx, route2CustomerIdx);
+        return replacementHashChange(solution, route1Idx, route1CustomerIdx, customer2)
+                + replacementHashChange(solution, route2Idx, route2CustomerIdx, customer1);
+    }
+
+    // change in hash when the customer at customerIdx in the route is replaced by newCustomer
+    private static long replacementHashChange(Solution solution, int routeIdx, int customerIdx, int newCustomer) {
+        int prev = solution.customerAt(routeIdx, customerIdx - 1);
+        int oldCustomer = solution.customerAt(routeIdx, customerIdx);
+        int next = solution.customerAt(routeIdx, customerIdx + 1);
+        return Solution.arcKey(prev, newCustomer) + Solution.arcKey(newCustomer, next)
+                - Solution.arcKey(prev, oldCustomer) - Solution.arcKey(oldCustomer, next);
+    }
+
+    @Override
+    protected void updateRoutes(Solution solution, VRPInstance instance) {
+        int customer1 = solution.customerAt(route1Idx, route1CustomerIdx);
+        solution.setCustomerAt(route1Idx, route1CustomerIdx, solution.customerAt(route2Idx, route2CustomerIdx));
+        solution.setCustomerAt(route2Idx, route2CustomerIdx, customer1);
+
+        solution.updateRouteCache(route1Idx, route1CustomerIdx, instance);
+        solution.updateRouteCache(route2Idx, route2CustomerIdx, instance);
+    }
+}
@@ -0,0 +1,36 @@
+package solver.ls.MovingStrategy;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+/**
+ * A lightweight description of a change to a solution, proposed by a MovingStrategy.
+ * The distance change and feasibility of the move are computed against the solution it was
+ * proposed for (without copying it), and the move is only applied (in place) if the search accepts it.
+ */
+public abstract class Move {
+
+    public double distanceChange; // change in the total distance of the solution if this move is applied
+    public boolean isFeasible;    // whether the solution is still feasible after this move is applied
+
+    /**
+     * Applies this move (in place) to the solution it was proposed for
+     *
+     * @param solution: the solution this move was proposed for (and evaluated against)
+     */
+    public void apply(Solution solution, VRPInstance instance) {
+        updateRoutes(solution, instance);
+        solution.totalDistance += distanceChange;
+    }
+
+    /**
+     * @return the change in the solution's hash (see Solution.arcKey) if this move is applied, computed on demand from
+     * the arcs it changes (like the distance change, so the solution it was proposed for mustn't have changed since)
+     */
+    public abstract long hashChange(Solution solution);
+
+    /**
+     * Updates the routes changed by this move (along with their cached loads and lengths)
+     */
+    protected abstract void updateRoutes(Solution solution, VRPInstance instance);
+}
@@ -0,0 +1,36 @@
+package solver.ls.MovingStrategy;
+
+import java.util.function.Supplier;
+
+/**
+ * Two reusable instances of one kind of move, so a moving strategy can propose moves without allocating any.
+ * Each proposal overwrites the instance returned by next(); once the caller retains a proposed move (see
+ * MovingStrategy.retain), the other instance becomes the one that gets overwritten, so the retained move stays
+ * intact until another move is retained.
+ */
+public class MoveBuffer<M extends Move> {
+
+    private final M first;
+    private final M second;
+    private boolean secondIsNext = false;
+
+    public MoveBuffer(Supplier<M> factory) {
+        this.first = factory.get();
+        this.second = factory.get();
+    }
+
+    /**
+     * @return the instance to overwrite with the next proposal
+     */
+    public M next() {
+        return secondIsNext ? second : first;
+    }
+
+    /**
+     * Protects the move (if it is the last one proposed from this buffer) from being overwritten by the next proposal
+     */
+    public void retain(Move move) {
+        if (move == next())
+            secondIsNext = !secondIsNext;
+    }
+}
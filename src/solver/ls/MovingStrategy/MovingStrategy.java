@@ -1,14 +1,69 @@
 package solver.ls.MovingStrategy;
 
+import solver.ls.NeighborLists;
 import solver.ls.Solution;
 import solver.ls.VRPLocalSearch;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 public interface MovingStrategy {
 
-    Solution getSingleNeighbor(Solution currentSolution, VRPLocalSearch instance);
+    /**
+     * Proposes a move away from the current solution. The move is evaluated against the current
+     * solution, but the current solution isn't modified (or copied) to do so.
+     *
+     * @param currentSolution: the solution from which we are moving
+     * @return the proposed move, or null if no move could be proposed from the current solution
+     */
+    Move proposeMove(Solution currentSolution, VRPLocalSearch instance);
+
+    /**
+     * Lets the strategy know that the caller keeps a move it just proposed (e.g. as the best move of a neighborhood
+     * so far). Strategies reuse their move objects (see MoveBuffer), so any other move they proposed is only valid
+     * until their next proposal, but the retained move stays intact until another one is retained.
+     */
+    default void retain(Move move) {
+    }
+
+    /**
+     * Proposes moving a customer right next to (before or after) one of its nearest neighbors (so that the move
+     * creates an arc between two nearby customers). Only usable when the instance has neighbor lists.
+     *
+     * @param moves: the strategy's reusable relocation moves
+     * @param allowSameRoute: whether the customer can be moved within its own route
+     * @return the proposed move, or null if no suitable neighbor was found within a few tries
+     */
+    default Move proposeGranularRelocation(Solution currentSolution, VRPLocalSearch instance, Random random,
+                                           MoveBuffer<RelocateMove> moves, int sourceRouteIdx, int customerSourceIdx,
+                                           boolean allowSameRoute) {
+        final int NUM_TRIES = 5;
+        NeighborLists neighborLists = instance.neighborLists;
+        int customer = currentSolution.customerAt(sourceRouteIdx, customerSourceIdx);
+        for (int i = 0; i < NUM_TRIES; i++) {
+            int neighbor = neighborLists.get(customer, random.nextInt(neighborLists.numNeighbors()));
+            int destinationRouteIdx = currentSolution.routeOf(neighbor);
+            if (destinationRouteIdx == sourceRouteIdx && !allowSameRoute)
+                continue;
+            // insert the customer either just before or just after its neighbor
+            int customerDestinationIdx = currentSolution.positionOf(neighbor) + random.nextInt(2);
+            return moves.next().set(currentSolution, instance, sourceRouteIdx, customerSourceIdx, destinationRouteIdx, customerDestinationIdx);
+        }
+        return null;
+    }
+
+    default Solution getSingleNeighbor(Solution currentSolution, VRPLocalSearch instance) {
+        Solution newSolution = currentSolution.copy();
+        Move move = proposeMove(currentSolution, instance);
+        if (move == null)
+            return newSolution;
+
+        newSolution.isFeasible = move.isFeasible;
+        if (move.isFeasible) // infeasible solutions are discarded, so there's no need to apply the move to them
+            move.apply(newSolution, instance);
+        return newSolution;
+    }
 
     default List<Solution> getNeighborhood(Solution currentSolution, VRPLocalSearch instance, int numNeighbors) {
         List<Solution> neighborhood = new ArrayList<>();
@@ -17,49 +72,27 @@ public interface MovingStrategy {
         return neighborhood;
     }
 
-    default boolean isRouteFeasible(List<Integer> route, VRPLocalSearch instance) {
+    /**
+     * Checks a route using the solution's cached route loads (so this takes constant time). Moves only ever
+     * rearrange customers, so no customer can be visited twice -- that is checked for the solution as a
+     * whole by VRPInstance.isSolutionFeasible
+     */
+    default boolean isRouteFeasible(Solution solution, int routeIdx, VRPLocalSearch instance) {
+        int start = solution.routeStart[routeIdx];
+        int end = solution.routeStart[routeIdx + 1];
+
         // the route should begin and end at the depot (and have at least 2 elements)
-        if (route.size() < 2)
+        if (end - start < 2)
             return false;
-        if (route.get(0) != 0 || route.get(route.size() - 1) != 0)
+        if (solution.tour[start] != 0 || solution.tour[end - 1] != 0)
             return false;
 
-        // no customer in the route is visited more than once
-        int[] seenCustomers = new int[instance.getNumCustomers()];
-        for (int i = 1; i < route.size() - 1; i++) {
-            int customer = route.get(i);
-            if (seenCustomers[customer] == 1)
-                return false;
-            seenCustomers[customer] = 1;
-        }
-
         // the vehicle doesn't exceed its capacity
-        int vehicleCapacity = instance.getVehicleCapacity();
-        int capacityUsed = 0;
-        for (int customer : route) {
-            capacityUsed += instance.demandOfCustomer[customer];
-            if (capacityUsed > vehicleCapacity)
-                return false;
-        }
-
-        return true;
+        return solution.routeLoad[routeIdx] <= instance.getVehicleCapacity();
     }
 
-    default double routeDistanceChange(List<Integer> oldRoute, List<Integer> newRoute, VRPLocalSearch instance) {
-        double oldRouteDistance = 0.0;
-        for (int customerIdx = 1; customerIdx < oldRoute.size(); customerIdx++) {
-            int prevCustomer = oldRoute.get(customerIdx - 1);
-            int thisCustomer = oldRoute.get(customerIdx);
-            oldRouteDistance += instance.distance[prevCustomer][thisCustomer];
-        }
-
-        double newRouteDistance = 0.0;
-        for (int customerIdx = 1; customerIdx < newRoute.size(); customerIdx++) {
-            int prevCustomer = newRoute.get(customerIdx - 1);
-            int thisCustomer = newRoute.get(customerIdx);
-            newRouteDistance += instance.distance[prevCustomer][thisCustomer];
-        }
-
-        return newRouteDistance - oldRouteDistance;
+    default double routeDistanceChange(Solution oldSolution, Solution newSolution, int routeIdx, VRPLocalSearch instance) {
+        // both solutions keep the lengths of their routes cached, so this takes constant time
+        return newSolution.routeLength[routeIdx] - oldSolution.routeLength[routeIdx];
     }
 }
@@ -0,0 +1,106 @@
+package solver.ls.MovingStrategy;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+/**
+ * Moves a segment of consecutive customers to another position of the same route (optionally reversing it).
+ * Only the arcs at the ends of the segment and at the insertion point change, so the distance change is
+ * computed in O(1).
+ */
+public class OrOptMove extends Move {
+
+    private int routeIdx;
+    private int segmentStartIdx;
+    private int segmentLength;
+    private int insertionIdx;
+    private boolean reversed;
+
+    /**
+     * An unset move, which has to be set before it is used (see MoveBuffer)
+     */
+    public OrOptMove() {
+    }
+
+    public OrOptMove(Solution currentSolution, VRPInstance instance, int routeIdx, int segmentStartIdx, int segmentLength,
+                     int insertionIdx, boolean reversed) {
+        set(currentSolution, instance, routeIdx, segmentStartIdx, segmentLength, insertionIdx, reversed);
+    }
+
+    /**
+     * Sets this move up from scratch (so that the same object can be reused for another proposal)
+     *
+     * @param insertionIdx: the segment is inserted before the location currently at this position (which must not
+     *                      be within the segment, or right after it)
+     * @param reversed: whether the segment is inserted in reverse order
+     * @return this move
+     */
+    public OrOptMove set(Solution currentSolution, VRPInstance instance, int routeIdx, int segmentStartIdx, int segmentLength,
+                         int insertionIdx, boolean reversed) {
+        this.routeIdx = routeIdx;
+        this.segmentStartIdx = segmentStartIdx;
+        this.segmentLength = segmentLength;
+        this.insertionIdx = insertionIdx;
+        this.reversed = reversed;
+
+        // moving customers within a route doesn't change the route's load
+        this.isFeasible = true;
+
+        // example: p -> [s ... e] -> q ... a -> b becomes p -> q ... a -> [s ... e] -> b
+        int p = currentSolution.customerAt(routeIdx, segmentStartIdx - 1);
+        int s = currentSolution.customerAt(routeIdx, segmentStartIdx);
+        int e = currentSolution.customerAt(routeIdx, segmentStartIdx + segmentLength - 1);
+        int q = currentSolution.customerAt(routeIdx, segmentStartIdx + segmentLength);
+        int a = currentSolution.customerAt(routeIdx, insertionIdx - 1);
+        int b = currentSolution.customerAt(routeIdx, insertionIdx);
+        this.distanceChange = distanceChange(instance, p, s, e, q, a, b, reversed);
+        return this;
+    }
+
+    /**
+     * @return the change in distance of moving the segment s ... e (between p and q) between a and b
+     */
+    public static double distanceChange(VRPInstance instance, int p, int s, int e, int q, int a, int b, boolean reversed) {
+        double removal = instance.distance.get(p, s) + instance.distance.get(e, q) - instance.distance.get(p, q);
+        double insertion = reversed
+                ? instance.distance.get(a, e) + instance.distance.get(s, b) - instance.distance.get(a, b)
+                : instance.distance.get(a, s) + instance.distance.get(e, b) - instance.distance.get(a, b);
+        return insertion - removal;
+    }
+
+    @Override
+    public long hashChange(Solution solution) {
+        int p = solution.customerAt(routeIdx, segmentStartIdx - 1);
+        int s = solution.customerAt(routeIdx, segmentStartIdx);
+        int e = solution.customerAt(routeIdx, segmentStartIdx + segmentLength - 1);
+        int q = solution.customerAt(routeIdx, segmentStartIdx + segmentLength);
+        int a = solution.customerAt(routeIdx, insertionIdx - 1);
+        int b = solution.customerAt(routeIdx, insertionIdx);
+        long removal = Solution.arcKey(p, s) + Solution.arcKey(e, q) - Solution.arcKey(p, q);
+        long insertion = reversed
+                ? Solution.arcKey(a, e) + Solution.arcKey(s, b) - Solution.arcKey(a, b)
+                : Solution.arcKey(a, s) + Solution.arcKey(e, b) - Solution.arcKey(a, b);
+        return insertion - removal;
+    }
+
+    @Override
+    protected void updateRoutes(Solution solution, VRPInstance instance) {
+        // swapping the segment with the block of customers between it and the insertion point is a rotation, which
+        // is done in place by reversing the segment and the block, and then both of them together (the segment is
+        // left out of the first reversal to end up reversed)
+        int segmentEndIdx = segmentStartIdx + segmentLength - 1;
+        if (insertionIdx > segmentStartIdx) {
+            if (!reversed)
+                solution.reverse(routeIdx, segmentStartIdx, segmentEndIdx);
+            solution.reverse(routeIdx, segmentEndIdx + 1, insertionIdx - 1);
+            solution.reverse(routeIdx, segmentStartIdx, insertionIdx - 1);
+            solution.updateRouteCache(routeIdx, segmentStartIdx, instance);
+        } else {
+            solution.reverse(routeIdx, insertionIdx, segmentStartIdx - 1);
+            if (!reversed)
+                solution.reverse(routeIdx, segmentStartIdx, segmentEndIdx);
+            solution.reverse(routeIdx, insertionIdx, segmentEndIdx);
+            solution.updateRouteCache(routeIdx, insertionIdx, instance);
+        }
+    }
+}
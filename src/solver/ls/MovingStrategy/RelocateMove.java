@@ -0,0 +1,102 @@
+package solver.ls.MovingStrategy;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+/**
+ * Removes a customer from its position in a route and inserts it before the customer currently at
+ * a given position of some route (which could be the same route it was removed from).
+ * Only the arcs around the old and new positions change, so the distance change is computed in O(1).
+ */
+public class RelocateMove extends Move {
+
+    private int sourceRouteIdx;
+    private int customerSourceIdx;
+    private int destinationRouteIdx;
+    private int customerDestinationIdx; // index (in the current destination route) to insert the customer before
+
+    /**
+     * An unset move, which has to be set before it is used (see MoveBuffer)
+     */
+    public RelocateMove() {
+    }
+
+    public RelocateMove(Solution currentSolution, VRPInstance instance, int sourceRouteIdx, int customerSourceIdx,
+                        int destinationRouteIdx, int customerDestinationIdx) {
+        set(currentSolution, instance, sourceRouteIdx, customerSourceIdx, destinationRouteIdx, customerDestinationIdx);
+    }
+
+    /**
+     * Sets this move up from scratch (so that the same object can be reused for another proposal)
+     *
+     * @return this move
+     */
+    public RelocateMove set(Solution currentSolution, VRPInstance instance, int sourceRouteIdx, int customerSourceIdx,
+                            int destinationRouteIdx, int customerDestinationIdx) {
+        this.sourceRouteIdx = sourceRouteIdx;
+        this.customerSourceIdx = customerSourceIdx;
+        this.destinationRouteIdx = destinationRouteIdx;
+        this.customerDestinationIdx = customerDestinationIdx;
+
+        int customer = currentSolution.customerAt(sourceRouteIdx, customerSourceIdx);
+
+        if (sourceRouteIdx == destinationRouteIdx) {
+            // moving within a route doesn't change its load
+            this.isFeasible = true;
+            if (customerDestinationIdx == customerSourceIdx || customerDestinationIdx == customerSourceIdx + 1) {
+                this.distanceChange = 0.0; // customer ends up where it already is
+                return this;
+            }
+        } else {
+            int vehicleCapacity = instance.getVehicleCapacity();
+            this.isFeasible = currentSolution.routeLoad[destinationRouteIdx] + instance.demandOfCustomer[customer] <= vehicleCapacity;
+            if (!this.isFeasible)
+                return this; // no need to compute the distance change -- infeasible moves are discarded
+        }
+
+        // removal: prev -> customer -> next becomes prev -> next
+        int prev = currentSolution.customerAt(sourceRouteIdx, customerSourceIdx - 1);
+        int next = currentSolution.customerAt(sourceRouteIdx, customerSourceIdx + 1);
+        double removalChange = instance.distance.get(prev, next) - instance.distance.get(prev, customer) - instance.distance.get(customer, next);
+
+        // insertion: before -> after becomes before -> customer -> after
+        int before = currentSolution.customerAt(destinationRouteIdx, customerDestinationIdx - 1);
+        int after = currentSolution.customerAt(destinationRouteIdx, customerDestinationIdx);
+        double insertionChange = instance.distance.get(before, customer) + instance.distance.get(customer, after) - instance.distance.get(before, after);
+
+        this.distanceChange = removalChange + insertionChange;
+        return this;
+    }
+
+    @Override
+    public long hashChange(Solution solution) {
+        if (sourceRouteIdx == destinationRouteIdx
+                && (customerDestinationIdx == customerSourceIdx || customerDestinationIdx == customerSourceIdx + 1))
+            return 0; // customer ends up where it already is
+        int customer = solution.customerAt(sourceRouteIdx, customerSourceIdx);
+        int prev = solution.customerAt(sourceRouteIdx, customerSourceIdx - 1);
+        int next = solution.customerAt(sourceRouteIdx, customerSourceIdx + 1);
+        int before = solution.customerAt(destinationRouteIdx, customerDestinationIdx - 1);
+        int after = solution.customerAt(destinationRouteIdx, customerDestinationIdx);
+        return Solution.arcKey(prev, next) - Solution.arcKey(prev, customer) - Solution.arcKey(customer, next)
+                + Solution.arcKey(before, customer) + Solution.arcKey(customer, after) - Solution.arcKey(before, after);
+    }
+
+    @Override
+    protected void updateRoutes(Solution solution, VRPInstance instance) {
+        int customer = solution.removeCustomer(sourceRouteIdx, customerSourceIdx);
+
+        // removing the customer shifts everything after it (in the same route) one position to the left
+        int insertionIdx = customerDestinationIdx;
+        if (sourceRouteIdx == destinationRouteIdx && customerDestinationIdx > customerSourceIdx)
+            insertionIdx--;
+        solution.insertCustomer(destinationRouteIdx, insertionIdx, customer);
+
+        if (destinationRouteIdx != sourceRouteIdx) {
+            solution.updateRouteCache(sourceRouteIdx, customerSourceIdx, instance);
+            solution.updateRouteCache(destinationRouteIdx, insertionIdx, instance);
+        } else {
+            solution.updateRouteCache(sourceRouteIdx, Math.min(customerSourceIdx, insertionIdx), instance);
+        }
+    }
+}
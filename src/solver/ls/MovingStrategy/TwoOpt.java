@@ -3,9 +3,6 @@ package solver.ls.MovingStrategy;
 import solver.ls.Solution;
 import solver.ls.VRPLocalSearch;
 
-import java.sql.Array;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
 
 import static java.lang.Math.max;
@@ -17,40 +14,43 @@ public class TwoOpt implements MovingStrategy {
     // might become: 0 -> 5 -> 1 -> 3 -> 2 -> 4 -> 6 -> 0 (if we remove the cross along the arc 2 -> 3)
     // (2 and 3 here are randomly picked)
 
-    private final Random random = new Random(550);
+    private final Random random;
+    private final MoveBuffer<TwoOptMove> moves = new MoveBuffer<>(TwoOptMove::new);
 
-    private int pickCustomerFromRoute(List<Integer> route) {
+    public TwoOpt() {
+        this(550);
+    }
+
+    public TwoOpt(long seed) {
+        this.random = new Random(seed);
+    }
+
+    private int pickCustomerFromRoute(int routeSize) {
         // add 1 to result to prevent picking customer at index 0 (avoid depot)
         // subtract 2 at end -- subtract 1 to avoid picking last index (depot), and
         //   subtract another 1 to account for adding 1 in the beginning
-        return 1 + random.nextInt(route.size() - 2);
+        return 1 + random.nextInt(routeSize - 2);
     }
 
-    private Solution performTwoOpt(Solution currentSolution, int routeIdx) {
-        Solution newSolution = currentSolution.copy();
-        List<Integer> route = currentSolution.routes.get(routeIdx);
+    private Move proposeTwoOpt(Solution currentSolution, VRPLocalSearch instance, int routeIdx) {
+        int routeSize = currentSolution.routeSize(routeIdx);
 
-        if (route.size() < 4)
-            return newSolution;
+        if (routeSize < 4)
+            return null;
 
         // pick 2 different customers
         int custIdx1 = 0;
         int custIdx2 = 0;
         while (custIdx1 == custIdx2) {
-            custIdx1 = pickCustomerFromRoute(route);
-            custIdx2 = pickCustomerFromRoute(route);
+            custIdx1 = pickCustomerFromRoute(routeSize);
+            custIdx2 = pickCustomerFromRoute(routeSize);
         }
 
         // swap so customer1 idx < customer2 idx
         int startCustomerIdx = min(custIdx1, custIdx2);
         int endCustomerIdx = max(custIdx1, custIdx2);
 
-        for (int i = startCustomerIdx; i <= endCustomerIdx; i++) {
-            int toSwapCustomer = route.get(endCustomerIdx - (i - startCustomerIdx));
-            newSolution.routes.get(routeIdx).set(i, toSwapCustomer);
-        }
-
-        return newSolution;
+        return moves.next().set(currentSolution, instance, routeIdx, startCustomerIdx, endCustomerIdx);
     }
 
     /**
@@ -59,23 +59,13 @@ public class TwoOpt implements MovingStrategy {
      * @param currentSolution: the solution from which we are making the move
      * @return the move that is made to get to the next solution
      */
-    public Solution getSingleNeighbor(Solution currentSolution, VRPLocalSearch instance) {
-        int routeIdx = random.nextInt(currentSolution.routes.size());
-        Solution newSolution = performTwoOpt(currentSolution, routeIdx);
-
-        // run verification -- we only need to check that the two routes that were changed are still valid
-        List<Integer> newRoute = newSolution.routes.get(routeIdx);
-        newSolution.isFeasible = this.isRouteFeasible(newRoute, instance);
-        if (!newSolution.isFeasible) {
-            // no need to update total distance here -- we only consider feasible solutions so this will be discarded
-            return newSolution;
-        }
-
-        // compute new total distance -- we can compute this by seeing the change in distance for the two
-        // modified routes
-        List<Integer> oldRoute = currentSolution.routes.get(routeIdx);
-        newSolution.totalDistance += this.routeDistanceChange(oldRoute, newRoute, instance);
+    public Move proposeMove(Solution currentSolution, VRPLocalSearch instance) {
+        int routeIdx = random.nextInt(currentSolution.numRoutes());
+        return proposeTwoOpt(currentSolution, instance, routeIdx);
+    }
 
-        return newSolution;
+    @Override
+    public void retain(Move move) {
+        moves.retain(move);
     }
 }
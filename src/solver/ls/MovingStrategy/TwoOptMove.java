@@ -0,0 +1,70 @@
+package solver.ls.MovingStrategy;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+/**
+ * Reverses the segment of a route between two positions (inclusive).
+ * Only the two arcs at the ends of the segment change, so the distance change is computed in O(1).
+ */
+public class TwoOptMove extends Move {
+
+    private int routeIdx;
+    private int startCustomerIdx;
+    private int endCustomerIdx;
+
+    /**
+     * An unset move, which has to be set before it is used (see MoveBuffer)
+     */
+    public TwoOptMove() {
+    }
+
+    public TwoOptMove(Solution currentSolution, VRPInstance instance, int routeIdx, int startCustomerIdx, int endCustomerIdx) {
+        set(currentSolution, instance, routeIdx, startCustomerIdx, endCustomerIdx);
+    }
+
+    /**
+     * Sets this move up from scratch (so that the same object can be reused for another proposal)
+     *
+     * @return this move
+     */
+    public TwoOptMove set(Solution currentSolution, VRPInstance instance, int routeIdx, int startCustomerIdx, int endCustomerIdx) {
+        this.routeIdx = routeIdx;
+        this.startCustomerIdx = startCustomerIdx;
+        this.endCustomerIdx = endCustomerIdx;
+
+        // reversing a segment doesn't change the set of customers in the route, so the route's load is unchanged
+        this.isFeasible = true;
+
+        // example: a -> b -> ... -> c -> d becomes a -> c -> ... -> b -> d
+        int a = currentSolution.customerAt(routeIdx, startCustomerIdx - 1);
+        int b = currentSolution.customerAt(routeIdx, startCustomerIdx);
+        int c = currentSolution.customerAt(routeIdx, endCustomerIdx);
+        int d = currentSolution.customerAt(routeIdx, endCustomerIdx + 1);
+        this.distanceChange = distanceChange(instance, a, b, c, d);
+        return this;
+    }
+
+    /**
+     * @return the change in distance of replacing the arcs a -> b and c -> d with a -> c and b -> d
+     */
+    public static double distanceChange(VRPInstance instance, int a, int b, int c, int d) {
+        return instance.distance.get(a, c) + instance.distance.get(b, d)
+                - instance.distance.get(a, b) - instance.distance.get(c, d);
+    }
+
+    @Override
+    public long hashChange(Solution solution) {
+        int a = solution.customerAt(routeIdx, startCustomerIdx - 1);
+        int b = solution.customerAt(routeIdx, startCustomerIdx);
+        int c = solution.customerAt(routeIdx, endCustomerIdx);
+        int d = solution.customerAt(routeIdx, endCustomerIdx + 1);
+        return Solution.arcKey(a, c) + Solution.arcKey(b, d) - Solution.arcKey(a, b) - Solution.arcKey(c, d);
+    }
+
+    @Override
+    protected void updateRoutes(Solution solution, VRPInstance instance) {
+        solution.reverse(routeIdx, startCustomerIdx, endCustomerIdx);
+        solution.updateRouteCache(routeIdx, startCustomerIdx, instance);
+    }
+}
@@ -0,0 +1,89 @@
+package solver.ls.MovingStrategy;
+
+import solver.ls.NeighborLists;
+import solver.ls.Solution;
+import solver.ls.VRPLocalSearch;
+
+import java.util.Random;
+
+// Randomly picks two routes and a cut in each of them, and exchanges the parts of the routes after the cuts (2-opt*)
+// example: 0 -> 1 -> 2 -> 3 -> 0 and 0 -> 4 -> 5 -> 6 -> 0 might become 0 -> 1 -> 5 -> 6 -> 0 and 0 -> 4 -> 2 -> 3 -> 0
+public class TwoOptStar implements MovingStrategy {
+
+    private final Random random;
+    private final MoveBuffer<TwoOptStarMove> moves = new MoveBuffer<>(TwoOptStarMove::new);
+
+    public TwoOptStar() {
+        this(750);
+    }
+
+    public TwoOptStar(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Picks a random route with at least one customer, and exchanges its tail with the tail of another random route
+     *
+     * @param currentSolution: the solution from which we are moving
+     * @return the move that exchanges the tails, or null if no useful exchange was picked
+     */
+    public Move proposeMove(Solution currentSolution, VRPLocalSearch instance) {
+        final int NUM_TRIES = 5;
+        int numVehicles = currentSolution.numRoutes();
+
+        int route1Idx = random.nextInt(numVehicles);
+        for (int i = 0; i < NUM_TRIES && currentSolution.routeSize(route1Idx) <= 2; i++) {
+            route1Idx = random.nextInt(numVehicles);
+        }
+        if (currentSolution.routeSize(route1Idx) <= 2)
+            return null;
+
+        // with neighbor lists, cut the routes so that a customer ends up next to one of its nearest neighbors instead
+        if (instance.neighborLists != null)
+            return proposeGranularExchange(currentSolution, instance, route1Idx);
+
+        int route2Idx = random.nextInt(numVehicles);
+        if (route2Idx == route1Idx)
+            return null;
+
+        // cut each route after a random location (the depot at its start, or one of its customers)
+        int route1LastKeptIdx = random.nextInt(currentSolution.routeSize(route1Idx) - 1);
+        int route2LastKeptIdx = random.nextInt(currentSolution.routeSize(route2Idx) - 1);
+        return createMove(currentSolution, instance, route1Idx, route1LastKeptIdx, route2Idx, route2LastKeptIdx);
+    }
+
+    /**
+     * Picks a random customer from the given route and one of its nearest neighbors (in a different route), and
+     * cuts both routes so that the customer is followed (or preceded) by the neighbor after the exchange
+     */
+    private Move proposeGranularExchange(Solution currentSolution, VRPLocalSearch instance, int route1Idx) {
+        NeighborLists neighborLists = instance.neighborLists;
+        int customerIdx = 1 + random.nextInt(currentSolution.routeSize(route1Idx) - 2);
+        int customer = currentSolution.customerAt(route1Idx, customerIdx);
+        int neighbor = neighborLists.get(customer, random.nextInt(neighborLists.numNeighbors()));
+        int route2Idx = currentSolution.routeOf(neighbor);
+        if (route2Idx == route1Idx)
+            return null;
+
+        int neighborIdx = currentSolution.positionOf(neighbor);
+        if (random.nextBoolean()) // customer -> neighbor
+            return createMove(currentSolution, instance, route1Idx, customerIdx, route2Idx, neighborIdx - 1);
+        else // neighbor -> customer
+            return createMove(currentSolution, instance, route1Idx, customerIdx - 1, route2Idx, neighborIdx);
+    }
+
+    private Move createMove(Solution currentSolution, VRPLocalSearch instance, int route1Idx, int route1LastKeptIdx,
+                            int route2Idx, int route2LastKeptIdx) {
+        // exchanging two empty tails (or two whole routes) doesn't change anything
+        boolean tailsEmpty = route1LastKeptIdx == currentSolution.routeSize(route1Idx) - 2
+                && route2LastKeptIdx == currentSolution.routeSize(route2Idx) - 2;
+        if (tailsEmpty || (route1LastKeptIdx == 0 && route2LastKeptIdx == 0))
+            return null;
+        return moves.next().set(currentSolution, instance, route1Idx, route1LastKeptIdx, route2Idx, route2LastKeptIdx);
+    }
+
+    @Override
+    public void retain(Move move) {
+        moves.retain(move);
+    }
+}
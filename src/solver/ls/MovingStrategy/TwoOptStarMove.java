@@ -0,0 +1,81 @@
+package solver.ls.MovingStrategy;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+/**
+ * Exchanges the tails of two routes (2-opt*): each route keeps its customers up to a position, and then serves the
+ * customers that came after the other route's position.
+ * The loads of the new routes come from the cached cumulative loads, and only the two arcs at the cuts change, so
+ * both feasibility and the distance change are computed in O(1).
+ */
+public class TwoOptStarMove extends Move {
+
+    private int route1Idx;
+    private int route1LastKeptIdx;
+    private int route2Idx;
+    private int route2LastKeptIdx;
+
+    /**
+     * An unset move, which has to be set before it is used (see MoveBuffer)
+     */
+    public TwoOptStarMove() {
+    }
+
+    public TwoOptStarMove(Solution currentSolution, VRPInstance instance, int route1Idx, int route1LastKeptIdx,
+                          int route2Idx, int route2LastKeptIdx) {
+        set(currentSolution, instance, route1Idx, route1LastKeptIdx, route2Idx, route2LastKeptIdx);
+    }
+
+    /**
+     * Sets this move up from scratch (so that the same object can be reused for another proposal)
+     *
+     * @param route1LastKeptIdx: the position of the last location (possibly the starting depot) that route 1 keeps
+     * @param route2LastKeptIdx: the position of the last location (possibly the starting depot) that route 2 keeps
+     * @return this move
+     */
+    public TwoOptStarMove set(Solution currentSolution, VRPInstance instance, int route1Idx, int route1LastKeptIdx,
+                              int route2Idx, int route2LastKeptIdx) {
+        this.route1Idx = route1Idx;
+        this.route1LastKeptIdx = route1LastKeptIdx;
+        this.route2Idx = route2Idx;
+        this.route2LastKeptIdx = route2LastKeptIdx;
+
+        // each route's new load is the load up to its cut, plus the load of the other route after its cut
+        int head1Load = currentSolution.prefixLoad[currentSolution.routeStart[route1Idx] + route1LastKeptIdx];
+        int head2Load = currentSolution.prefixLoad[currentSolution.routeStart[route2Idx] + route2LastKeptIdx];
+        int tail1Load = currentSolution.routeLoad[route1Idx] - head1Load;
+        int tail2Load = currentSolution.routeLoad[route2Idx] - head2Load;
+        int vehicleCapacity = instance.getVehicleCapacity();
+        this.isFeasible = head1Load + tail2Load <= vehicleCapacity && head2Load + tail1Load <= vehicleCapacity;
+        if (!this.isFeasible)
+            return this; // no need to compute the distance change -- infeasible moves are discarded
+
+        // example: a1 -> b1 and a2 -> b2 become a1 -> b2 and a2 -> b1
+        int a1 = currentSolution.customerAt(route1Idx, route1LastKeptIdx);
+        int b1 = currentSolution.customerAt(route1Idx, route1LastKeptIdx + 1);
+        int a2 = currentSolution.customerAt(route2Idx, route2LastKeptIdx);
+        int b2 = currentSolution.customerAt(route2Idx, route2LastKeptIdx + 1);
+        this.distanceChange = instance.distance.get(a1, b2) + instance.distance.get(a2, b1)
+                - instance.distance.get(a1, b1) - instance.distance.get(a2, b2);
+        return this;
+    }
+
+    @Override
+    public long hashChange(Solution solution) {
+        int a1 = solution.customerAt(route1Idx, route1LastKeptIdx);
+        int b1 = solution.customerAt(route1Idx, route1LastKeptIdx + 1);
+        int a2 = solution.customerAt(route2Idx, route2LastKeptIdx);
+        int b2 = solution.customerAt(route2Idx, route2LastKeptIdx + 1);
+        return Solution.arcKey(a1, b2) + Solution.arcKey(a2, b1) - Solution.arcKey(a1, b1) - Solution.arcKey(a2, b2);
+    }
+
+    @Override
+    protected void updateRoutes(Solution solution, VRPInstance instance) {
+        // the tails, without the depots at the ends of the routes
+        solution.swapSegments(route1Idx, route1LastKeptIdx + 1, solution.routeSize(route1Idx) - 1,
+                route2Idx, route2LastKeptIdx + 1, solution.routeSize(route2Idx) - 1);
+        solution.updateRouteCache(route1Idx, route1LastKeptIdx + 1, instance);
+        solution.updateRouteCache(route2Idx, route2LastKeptIdx + 1, instance);
+    }
+}
@@ -3,13 +3,11 @@ package solver.ls.MovingStrategy;
 import solver.ls.Solution;
 import solver.ls.VRPLocalSearch;
 
-import java.util.List;
-
 public class TwoOptWithCrossRouteCustomerMove implements MovingStrategy {
 
     private final CrossRouteCustomerMove crossRouteCustomerMove;
     private final TwoOpt twoOpt;
-    private static int countSinceLastCrossMove = 0;
+    private int countSinceLastCrossMove = 0;
     private final int TWO_OPT_BETWEEN_CROSS_MOVE_COUNT = 5;
 
     public TwoOptWithCrossRouteCustomerMove() {
@@ -17,16 +15,22 @@ public class TwoOptWithCrossRouteCustomerMove implements MovingStrategy {
         this.twoOpt = new TwoOpt();
     }
 
-    public Solution getSingleNeighbor(Solution currentSolution, VRPLocalSearch instance) {
+    public Move proposeMove(Solution currentSolution, VRPLocalSearch instance) {
         if (countSinceLastCrossMove < TWO_OPT_BETWEEN_CROSS_MOVE_COUNT) {
             // do a two-opt
             countSinceLastCrossMove++;
-            return twoOpt.getSingleNeighbor(currentSolution, instance);
+            return twoOpt.proposeMove(currentSolution, instance);
         }
         else {
             // do cross route move
             countSinceLastCrossMove = 0;
-            return crossRouteCustomerMove.getSingleNeighbor(currentSolution, instance);
+            return crossRouteCustomerMove.proposeMove(currentSolution, instance);
         }
     }
+
+    @Override
+    public void retain(Move move) {
+        twoOpt.retain(move);
+        crossRouteCustomerMove.retain(move);
+    }
 }
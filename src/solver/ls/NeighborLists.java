@@ -0,0 +1,139 @@
+package solver.ls;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * For every customer, the k customers nearest to it (nearest first). Moving strategies use these to build
+ * granular neighborhoods: instead of inserting customers at random positions (mostly next to far-away customers,
+ * so those moves get rejected), they only propose moves that create arcs between nearby customers.
+ */
+public class NeighborLists {
+
+    private static final long MAGIC = 0x5652504E42525331L; // "VRPNBRS1"
+    private static final int HEADER_BYTES = 16; // the magic number, the number of customers and of neighbors
+
+    private final int requestedNeighbors; // the number of neighbors the lists were built for (numNeighbors can be fewer)
+    private final int numNeighbors;
+    private final int[] neighbors; // neighbors of customer c are at neighbors[c * numNeighbors] ... (nearest first)
+
+    public NeighborLists(VRPInstance instance, int numNeighbors) {
+        int numCustomers = instance.getNumCustomers();
+        // the depot isn't a neighbor, and neither is the customer itself
+        this.requestedNeighbors = numNeighbors;
+        this.numNeighbors = Math.max(0, Math.min(numNeighbors, numCustomers - 2));
+        this.neighbors = new int[numCustomers * this.numNeighbors];
+        if (this.numNeighbors == 0)
+            return;
+
+        // keep the k nearest customers seen so far in a sorted buffer -- cheaper than sorting every row when k is small
+        double[] nearestDistances = new double[this.numNeighbors];
+        double[] row = new double[numCustomers];
+        for (int customer = 1; customer < numCustomers; customer++) {
+            int offset = customer * this.numNeighbors;
+            int found = 0;
+            instance.distance.getRow(customer, row, numCustomers);
+            for (int other = 1; other < numCustomers; other++) {
+                if (other == customer)
+                    continue;
+                double dist = row[other];
+                if (found == this.numNeighbors && dist >= nearestDistances[found - 1])
+                    continue;
+
+                // insertion sort into the buffer (dropping the farthest one if it's full)
+                int i = found < this.numNeighbors ? found++ : found - 1;
+                while (i > 0 && nearestDistances[i - 1] > dist) {
+                    nearestDistances[i] = nearestDistances[i - 1];
+                    neighbors[offset + i] = neighbors[offset + i - 1];
+                    i--;
+                }
+                nearestDistances[i] = dist;
+                neighbors[offset + i] = other;
+            }
+        }
+    }
+
+    private NeighborLists(int requestedNeighbors, int numNeighbors, int[] neighbors) {
+        this.requestedNeighbors = requestedNeighbors;
+        this.numNeighbors = numNeighbors;
+        this.neighbors = neighbors;
+    }
+
+    /**
+     * @return the instance's neighbor lists: if its distance matrix came from the distance cache, they're read from
+     * there (or computed and added to it, the first time), and otherwise they're computed
+     */
+    public static NeighborLists create(VRPInstance instance, int numNeighbors) {
+        if (instance.distanceCacheKey == null)
+            return new NeighborLists(instance, numNeighbors);
+
+        Path file = instance.distanceCacheDir.resolve(instance.distanceCacheKey + ".k" + numNeighbors + ".nbrs");
+        try {
+            if (Files.isRegularFile(file)) {
+                NeighborLists cached = read(file, instance.getNumCustomers(), numNeighbors);
+                if (cached != null)
+                    return cached;
+            }
+        } catch (IOException e) {
+            // computed (and written) again below
+        }
+        NeighborLists neighborLists = new NeighborLists(instance, numNeighbors);
+        try {
+            neighborLists.write(file, instance.getNumCustomers());
+        } catch (IOException e) {
+            System.out.println("Error: couldn't cache the neighbor lists in " + file + ": " + e.getMessage());
+        }
+        return neighborLists;
+    }
+
+    // null if the file doesn't hold neighbor lists for this many customers (e.g. it was only partly written)
+    private static NeighborLists read(Path file, int numCustomers, int requestedNeighbors) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.nativeOrder());
+        if (buffer.capacity() < HEADER_BYTES || buffer.getLong(0) != MAGIC || buffer.getInt(8) != numCustomers)
+            return null;
+        int numNeighbors = buffer.getInt(12);
+        if (numNeighbors < 0 || buffer.capacity() != HEADER_BYTES + (long) Integer.BYTES * numCustomers * numNeighbors)
+            return null;
+        int[] neighbors = new int[numCustomers * numNeighbors];
+        buffer.position(HEADER_BYTES).asIntBuffer().get(neighbors);
+        return new NeighborLists(requestedNeighbors, numNeighbors, neighbors);
+    }
+
+    private void write(Path file, int numCustomers) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + Integer.BYTES * neighbors.length).order(ByteOrder.nativeOrder());
+        buffer.putLong(MAGIC).putInt(numCustomers).putInt(numNeighbors);
+        buffer.asIntBuffer().put(neighbors);
+        // written to a file of its own first, so other processes never read partially written lists
+        Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tempFile, buffer.array());
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    int requestedNeighbors() {
+        return requestedNeighbors;
+    }
+
+    public int numNeighbors() {
+        return numNeighbors;
+    }
+
+    /**
+     * @return the rank-th nearest customer to the given customer (rank 0 is the nearest)
+     */
+    public int get(int customer, int rank) {
+        return neighbors[customer * numNeighbors + rank];
+    }
+}
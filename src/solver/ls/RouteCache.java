@@ -0,0 +1,74 @@
+package solver.ls;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the routes IntraRouteOptimizer has optimized, keyed by their hash (see Solution.arcKey), so a route it has
+ * seen before doesn't have to be optimized again: the order it was optimized into is simply reapplied (and a route
+ * that's already in that order is left as it is). Searches keep revisiting the same routes (every restart returns to
+ * the incumbent's, and most ruin-and-recreate steps leave most routes as they were), so most lookups hit.
+ * <p>
+ * The cache is bounded: it's direct-mapped (each route can only be stored in one slot, which it takes over from
+ * whichever route was there before).
+ */
+public class RouteCache {
+
+    private static final int CACHE_SIZE = 1 << 14; // must be a power of 2
+
+    // immutable, so entries can be shared between threads without locking (final fields are safely published)
+    private static final class Entry {
+        final long routeHash;     // the route as it was before it was optimized
+        final long optimizedHash; // the route once it was optimized
+        final int[] customers;    // the customers in their optimized order (without the depot)
+
+        Entry(long routeHash, long optimizedHash, int[] customers) {
+            this.routeHash = routeHash;
+            this.optimizedHash = optimizedHash;
+            this.customers = customers;
+        }
+    }
+
+    private final Entry[] cache = new Entry[CACHE_SIZE];
+
+    private static int slot(long routeHash) {
+        return (int) ((routeHash * 0x9E3779B97F4A7C15L) >>> 50) & (CACHE_SIZE - 1);
+    }
+
+    /**
+     * @return the customers of the route with this hash in the order it was optimized into (without the depot; the
+     * array must not be modified), or null if the route isn't cached
+     */
+    int[] optimizedOrder(long routeHash) {
+        Entry entry = cache[slot(routeHash)];
+        return entry != null && entry.routeHash == routeHash ? entry.customers : null;
+    }
+
+    /**
+     * @return whether the route with this hash is known to be in the order it would be optimized into
+     */
+    boolean isOptimized(long routeHash) {
+        Entry entry = cache[slot(routeHash)];
+        return entry != null && entry.routeHash == routeHash && entry.optimizedHash == routeHash;
+    }
+
+    /**
+     * Records that a route was optimized into the order its customers are now in
+     *
+     * @param routeHash: the route's hash before it was optimized
+     */
+    void put(long routeHash, Solution solution, int routeIdx) {
+        int[] customers = new int[solution.routeSize(routeIdx) - 2];
+        System.arraycopy(solution.tour, solution.routeStart[routeIdx] + 1, customers, 0, customers.length);
+        long optimizedHash = solution.routeHash[routeIdx];
+        cache[slot(routeHash)] = new Entry(routeHash, optimizedHash, customers);
+        if (optimizedHash != routeHash)
+            cache[slot(optimizedHash)] = new Entry(optimizedHash, optimizedHash, customers);
+    }
+
+    /**
+     * Forgets every route (e.g. once the instance changes, since the routes' optimized orders may no longer be)
+     */
+    void clear() {
+        Arrays.fill(cache, null);
+    }
+}
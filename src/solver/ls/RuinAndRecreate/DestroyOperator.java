@@ -0,0 +1,34 @@
+package solver.ls.RuinAndRecreate;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+/**
+ * The "ruin" half of ruin-and-recreate: removes customers from a solution (in place), leaving them for a repair
+ * operator to insert again. Removing a customer keeps its route's cached loads and lengths, and the solution's total
+ * distance, up to date.
+ */
+public interface DestroyOperator {
+
+    /**
+     * @param numToRemove: how many customers to remove (at most the number of customers)
+     * @param removed: receives the removed customers (it has room for every customer)
+     * @return the number of customers removed (route removal can remove more than numToRemove, since it empties
+     * whole routes)
+     */
+    int destroy(Solution solution, VRPInstance instance, int numToRemove, int[] removed);
+
+    /**
+     * Removes a customer from its route
+     */
+    static void removeCustomer(Solution solution, VRPInstance instance, int customer) {
+        int routeIdx = solution.routeOf(customer);
+        int customerIdx = solution.positionOf(customer);
+        int prev = solution.customerAt(routeIdx, customerIdx - 1);
+        int next = solution.customerAt(routeIdx, customerIdx + 1);
+        solution.totalDistance += instance.distance.get(prev, next) - instance.distance.get(prev, customer)
+                - instance.distance.get(customer, next);
+        solution.removeCustomer(routeIdx, customerIdx);
+        solution.updateRouteCache(routeIdx, customerIdx, instance);
+    }
+}
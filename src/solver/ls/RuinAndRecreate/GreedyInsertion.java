@@ -0,0 +1,41 @@
+package solver.ls.RuinAndRecreate;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+/**
+ * Repeatedly makes the cheapest insertion of any waiting customer into any route (with room for it)
+ */
+public class GreedyInsertion implements RepairOperator {
+
+    private final InsertionCostCache insertions = new InsertionCostCache();
+
+    @Override
+    public boolean repair(Solution solution, VRPInstance instance, int[] customers, int numCustomers) {
+        insertions.reset(solution, instance, customers, numCustomers);
+        for (int numWaiting = numCustomers; numWaiting > 0; numWaiting--) {
+            int bestSlot = -1;
+            int bestRouteIdx = -1;
+            double bestCost = Double.POSITIVE_INFINITY;
+            for (int slot = 0; slot < numWaiting; slot++) {
+                for (int r = 0; r < solution.numRoutes(); r++) {
+                    if (insertions.cost(slot, r) < bestCost) {
+                        bestCost = insertions.cost(slot, r);
+                        bestSlot = slot;
+                        bestRouteIdx = r;
+                    }
+                }
+            }
+            if (bestSlot == -1)
+                return false; // none of the waiting customers fit into any route
+
+            int customer = customers[bestSlot];
+            RepairOperator.insertCustomer(solution, instance, customer, bestRouteIdx, insertions.position(bestSlot, bestRouteIdx));
+            customers[bestSlot] = customers[numWaiting - 1];
+            customers[numWaiting - 1] = customer;
+            insertions.remove(bestSlot, numWaiting - 1);
+            insertions.updateRoute(solution, instance, customers, numWaiting - 1, bestRouteIdx);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,87 @@
+package solver.ls.RuinAndRecreate;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+/**
+ * The cheapest insertion of each customer waiting to be inserted into each route (and where it is). Inserting a
+ * customer only changes its own route, so after each insertion only that route's insertions are recomputed, rather
+ * than every position of every route for every customer still waiting.
+ * <p>
+ * The waiting customers are kept in slots 0 ... numWaiting - 1 of the repair operator's array: when a customer is
+ * inserted, the last waiting customer moves into its slot (see remove).
+ */
+class InsertionCostCache {
+
+    private int numRoutes;
+    // cost[slot * numRoutes + r] is the cost of the cheapest insertion of the customer in the slot into route r
+    // (infinite if the route doesn't have room for it), before the location at position[slot * numRoutes + r]
+    private double[] cost = new double[0];
+    private int[] position = new int[0];
+
+    /**
+     * Computes the cheapest insertion of every waiting customer into every route
+     */
+    void reset(Solution solution, VRPInstance instance, int[] customers, int numWaiting) {
+        numRoutes = solution.numRoutes();
+        if (cost.length < numWaiting * numRoutes) {
+            cost = new double[numWaiting * numRoutes];
+            position = new int[numWaiting * numRoutes];
+        }
+        for (int slot = 0; slot < numWaiting; slot++) {
+            for (int r = 0; r < numRoutes; r++) {
+                computeInsertion(solution, instance, customers[slot], slot, r);
+            }
+        }
+    }
+
+    /**
+     * Recomputes every waiting customer's cheapest insertion into a route (after the route changed)
+     */
+    void updateRoute(Solution solution, VRPInstance instance, int[] customers, int numWaiting, int routeIdx) {
+        for (int slot = 0; slot < numWaiting; slot++) {
+            computeInsertion(solution, instance, customers[slot], slot, routeIdx);
+        }
+    }
+
+    /**
+     * Moves the insertions of the customer in the last waiting slot into the slot of a customer that was just
+     * inserted (call this along with moving the customer itself)
+     */
+    void remove(int slot, int lastSlot) {
+        System.arraycopy(cost, lastSlot * numRoutes, cost, slot * numRoutes, numRoutes);
+        System.arraycopy(position, lastSlot * numRoutes, position, slot * numRoutes, numRoutes);
+    }
+
+    double cost(int slot, int routeIdx) {
+        return cost[slot * numRoutes + routeIdx];
+    }
+
+    int position(int slot, int routeIdx) {
+        return position[slot * numRoutes + routeIdx];
+    }
+
+    private void computeInsertion(Solution solution, VRPInstance instance, int customer, int slot, int routeIdx) {
+        int idx = slot * numRoutes + routeIdx;
+        cost[idx] = Double.POSITIVE_INFINITY;
+        if (solution.routeLoad[routeIdx] + instance.demandOfCustomer[customer] > instance.getVehicleCapacity())
+            return;
+        for (int i = 1; i < solution.routeSize(routeIdx); i++) {
+            double insertionCost = insertionCost(solution, instance, customer, routeIdx, i);
+            if (insertionCost < cost[idx]) {
+                cost[idx] = insertionCost;
+                position[idx] = i;
+            }
+        }
+    }
+
+    /**
+     * @return the change in distance when the customer is inserted before the location at a position of a route
+     */
+    static double insertionCost(Solution solution, VRPInstance instance, int customer, int routeIdx, int customerIdx) {
+        int before = solution.customerAt(routeIdx, customerIdx - 1);
+        int after = solution.customerAt(routeIdx, customerIdx);
+        return instance.distance.get(before, customer) + instance.distance.get(customer, after)
+                - instance.distance.get(before, after);
+    }
+}
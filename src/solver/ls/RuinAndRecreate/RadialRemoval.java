@@ -0,0 +1,38 @@
+package solver.ls.RuinAndRecreate;
+
+import solver.ls.NeighborLists;
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+import java.util.Random;
+
+/**
+ * Removes a customer chosen at random along with the customers nearest to it, so that the repair can rearrange a
+ * whole area of the map (which usually spans several routes)
+ */
+public class RadialRemoval implements DestroyOperator {
+
+    private final Random random;
+    private final int maxRemoved;
+
+    public RadialRemoval(long seed, int maxRemoved) {
+        this.random = new Random(seed);
+        this.maxRemoved = maxRemoved;
+    }
+
+    @Override
+    public int destroy(Solution solution, VRPInstance instance, int numToRemove, int[] removed) {
+        NeighborLists nearest = instance.getNearestCustomers(maxRemoved - 1); // shared by every trajectory
+        numToRemove = Math.min(numToRemove, nearest.numNeighbors() + 1);
+
+        int center = 1 + random.nextInt(instance.getNumCustomers() - 1);
+        removed[0] = center;
+        DestroyOperator.removeCustomer(solution, instance, center);
+        for (int rank = 0; rank < numToRemove - 1; rank++) {
+            int customer = nearest.get(center, rank);
+            removed[rank + 1] = customer;
+            DestroyOperator.removeCustomer(solution, instance, customer);
+        }
+        return numToRemove;
+    }
+}
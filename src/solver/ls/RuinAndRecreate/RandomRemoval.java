@@ -0,0 +1,41 @@
+package solver.ls.RuinAndRecreate;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+import java.util.Random;
+
+/**
+ * Removes customers chosen uniformly at random
+ */
+public class RandomRemoval implements DestroyOperator {
+
+    private final Random random;
+    private int[] customers = new int[0]; // every customer, in the order the last call left them in
+
+    public RandomRemoval(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public int destroy(Solution solution, VRPInstance instance, int numToRemove, int[] removed) {
+        int numCustomers = instance.getNumCustomers() - 1; // without the depot
+        if (customers.length != numCustomers) {
+            customers = new int[numCustomers];
+            for (int i = 0; i < numCustomers; i++) {
+                customers[i] = i + 1;
+            }
+        }
+
+        // the first numToRemove steps of a Fisher-Yates shuffle
+        for (int i = 0; i < numToRemove; i++) {
+            int j = i + random.nextInt(numCustomers - i);
+            int customer = customers[j];
+            customers[j] = customers[i];
+            customers[i] = customer;
+            removed[i] = customer;
+            DestroyOperator.removeCustomer(solution, instance, customer);
+        }
+        return numToRemove;
+    }
+}
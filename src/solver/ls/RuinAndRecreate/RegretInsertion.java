@@ -0,0 +1,84 @@
+package solver.ls.RuinAndRecreate;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+import java.util.Arrays;
+
+/**
+ * Regret-k insertion: repeatedly inserts the waiting customer that would lose the most by waiting, i.e. whose
+ * cheapest insertion is the furthest below its insertions into its next k - 1 best routes (summed). Customers with
+ * fewer than k routes that have room for them go first, since they are the likeliest to end up without one. Each is
+ * inserted at its cheapest position.
+ */
+public class RegretInsertion implements RepairOperator {
+
+    private final int k;
+    private final InsertionCostCache insertions = new InsertionCostCache();
+    private final double[] bestCosts; // a customer's k cheapest insertions into different routes (cheapest first)
+
+    public RegretInsertion(int k) {
+        this.k = k;
+        this.bestCosts = new double[k];
+    }
+
+    @Override
+    public boolean repair(Solution solution, VRPInstance instance, int[] customers, int numCustomers) {
+        insertions.reset(solution, instance, customers, numCustomers);
+        for (int numWaiting = numCustomers; numWaiting > 0; numWaiting--) {
+            int chosenSlot = -1;
+            int chosenRouteIdx = -1;
+            double chosenRegret = Double.NEGATIVE_INFINITY;
+            double chosenCost = Double.POSITIVE_INFINITY;
+            for (int slot = 0; slot < numWaiting; slot++) {
+                int cheapestRouteIdx = kCheapestInsertions(slot, solution.numRoutes());
+                if (cheapestRouteIdx == -1)
+                    return false; // this customer doesn't fit into any route
+
+                double regret = 0;
+                for (int i = 1; i < k; i++) {
+                    regret += bestCosts[i] - bestCosts[0]; // infinite if there aren't k routes with room
+                }
+                if (regret > chosenRegret || (regret == chosenRegret && bestCosts[0] < chosenCost)) {
+                    chosenSlot = slot;
+                    chosenRouteIdx = cheapestRouteIdx;
+                    chosenRegret = regret;
+                    chosenCost = bestCosts[0];
+                }
+            }
+
+            int customer = customers[chosenSlot];
+            RepairOperator.insertCustomer(solution, instance, customer, chosenRouteIdx, insertions.position(chosenSlot, chosenRouteIdx));
+            customers[chosenSlot] = customers[numWaiting - 1];
+            customers[numWaiting - 1] = customer;
+            insertions.remove(chosenSlot, numWaiting - 1);
+            insertions.updateRoute(solution, instance, customers, numWaiting - 1, chosenRouteIdx);
+        }
+        return true;
+    }
+
+    /**
+     * Fills bestCosts with the k cheapest insertions of the customer in the slot (into different routes)
+     *
+     * @return the route of the cheapest insertion, or -1 if no route has room for the customer
+     */
+    private int kCheapestInsertions(int slot, int numRoutes) {
+        Arrays.fill(bestCosts, Double.POSITIVE_INFINITY);
+        int cheapestRouteIdx = -1;
+        for (int r = 0; r < numRoutes; r++) {
+            double cost = insertions.cost(slot, r);
+            if (cost >= bestCosts[k - 1])
+                continue;
+            // insertion sort into the k cheapest
+            int i = k - 1;
+            while (i > 0 && bestCosts[i - 1] > cost) {
+                bestCosts[i] = bestCosts[i - 1];
+                i--;
+            }
+            bestCosts[i] = cost;
+            if (i == 0)
+                cheapestRouteIdx = r;
+        }
+        return cheapestRouteIdx;
+    }
+}
@@ -0,0 +1,27 @@
+package solver.ls.RuinAndRecreate;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+/**
+ * The "recreate" half of ruin-and-recreate: inserts the customers a destroy operator removed back into the solution
+ * (in place), keeping the cached loads and lengths of the routes, and the solution's total distance, up to date.
+ */
+public interface RepairOperator {
+
+    /**
+     * @param customers: the customers to insert are customers[0] ... customers[numCustomers - 1] (which the
+     *                   operator may reorder)
+     * @return whether every customer was inserted (if not, the customers that didn't fit are left out)
+     */
+    boolean repair(Solution solution, VRPInstance instance, int[] customers, int numCustomers);
+
+    /**
+     * Inserts a customer before the location currently at a position of a route
+     */
+    static void insertCustomer(Solution solution, VRPInstance instance, int customer, int routeIdx, int customerIdx) {
+        solution.totalDistance += InsertionCostCache.insertionCost(solution, instance, customer, routeIdx, customerIdx);
+        solution.insertCustomer(routeIdx, customerIdx, customer);
+        solution.updateRouteCache(routeIdx, customerIdx, instance);
+    }
+}
@@ -0,0 +1,45 @@
+package solver.ls.RuinAndRecreate;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+import java.util.Random;
+
+/**
+ * Empties whole routes (chosen at random) until at least the requested number of customers are removed, so that the
+ * repair can spread their customers over the other routes
+ */
+public class RouteRemoval implements DestroyOperator {
+
+    private final Random random;
+    private int[] routes = new int[0]; // every route, in the order the last call left them in
+
+    public RouteRemoval(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public int destroy(Solution solution, VRPInstance instance, int numToRemove, int[] removed) {
+        int numRoutes = solution.numRoutes();
+        if (routes.length != numRoutes) {
+            routes = new int[numRoutes];
+            for (int r = 0; r < numRoutes; r++) {
+                routes[r] = r;
+            }
+        }
+
+        int numRemoved = 0;
+        for (int i = 0; i < numRoutes && numRemoved < numToRemove; i++) {
+            int j = i + random.nextInt(numRoutes - i);
+            int routeIdx = routes[j];
+            routes[j] = routes[i];
+            routes[i] = routeIdx;
+            while (solution.routeSize(routeIdx) > 2) {
+                int customer = solution.customerAt(routeIdx, 1);
+                removed[numRemoved++] = customer;
+                DestroyOperator.removeCustomer(solution, instance, customer);
+            }
+        }
+        return numRemoved;
+    }
+}
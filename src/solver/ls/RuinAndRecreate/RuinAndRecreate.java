@@ -0,0 +1,109 @@
+package solver.ls.RuinAndRecreate;
+
+import solver.ls.SearchTelemetry;
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Large neighborhood search: each step ruins part of a solution (removing up to MAX_REMOVED_FRACTION of its
+ * customers, with a destroy operator picked at random) and recreates it (reinserting them, with a repair operator
+ * picked at random). Unlike the moving strategies' single-customer or single-segment moves, a step can rearrange
+ * many customers across several routes at once.
+ */
+public class RuinAndRecreate {
+
+    private static final int MIN_REMOVED = 4;
+    private static final int MAX_REMOVED = 50;
+    private static final double MAX_REMOVED_FRACTION = 0.3;
+
+    private final Random random;
+    private final List<DestroyOperator> destroyOperators;
+    private final List<RepairOperator> repairOperators;
+
+    private final SearchTelemetry telemetry; // null unless telemetry is enabled
+    // telemetry counters of each operator (null unless telemetry is enabled)
+    private List<SearchTelemetry.StrategyCounters> destroyCounters;
+    private List<SearchTelemetry.StrategyCounters> repairCounters;
+    private int lastDestroyIdx; // the operators used by the last step
+    private int lastRepairIdx;
+
+    // reused by every step (so ruin-and-recreate doesn't allocate once it's warmed up)
+    private Solution candidate;
+    private int[] removed = new int[0];
+
+    /**
+     * @param telemetry: counts the steps each operator takes part in (null to not count them)
+     */
+    public RuinAndRecreate(long seed, SearchTelemetry telemetry) {
+        this.random = new Random(seed);
+        this.destroyOperators = List.of(
+                new RandomRemoval(seed + 1),
+                new RadialRemoval(seed + 2, MAX_REMOVED),
+                new WorstCostRemoval(seed + 3),
+                new RouteRemoval(seed + 4)
+        );
+        this.repairOperators = List.of(
+                new GreedyInsertion(),
+                new RegretInsertion(2),
+                new RegretInsertion(3)
+        );
+
+        this.telemetry = telemetry;
+        if (telemetry != null) {
+            destroyCounters = new ArrayList<>(destroyOperators.size());
+            for (DestroyOperator operator : destroyOperators) {
+                destroyCounters.add(telemetry.countersFor(operator.getClass().getSimpleName()));
+            }
+            repairCounters = new ArrayList<>(repairOperators.size());
+            for (RepairOperator operator : repairOperators) {
+                repairCounters.add(telemetry.countersFor(operator.getClass().getSimpleName()));
+            }
+        }
+    }
+
+    /**
+     * Ruins and recreates a copy of the solution (the solution itself isn't modified)
+     *
+     * @return the recreated solution (the same object on every call, so it has to be copied to be kept), or null if
+     * the removed customers couldn't all be reinserted
+     */
+    public Solution step(Solution solution, VRPInstance instance) {
+        int numCustomers = instance.getNumCustomers() - 1; // without the depot
+        if (numCustomers == 0)
+            return null;
+        if (candidate == null)
+            candidate = solution.copy();
+        else
+            candidate.copyFrom(solution);
+        if (removed.length < numCustomers)
+            removed = new int[numCustomers];
+
+        int maxRemoved = Math.min(numCustomers, Math.min(MAX_REMOVED, Math.max(MIN_REMOVED, (int) (MAX_REMOVED_FRACTION * numCustomers))));
+        int minRemoved = Math.min(MIN_REMOVED, maxRemoved);
+        int numToRemove = minRemoved + random.nextInt(maxRemoved - minRemoved + 1);
+
+        lastDestroyIdx = random.nextInt(destroyOperators.size());
+        lastRepairIdx = random.nextInt(repairOperators.size());
+        int numRemoved = destroyOperators.get(lastDestroyIdx).destroy(candidate, instance, numToRemove, removed);
+        boolean repaired = repairOperators.get(lastRepairIdx).repair(candidate, instance, removed, numRemoved);
+        if (telemetry != null) {
+            telemetry.recordProposal(destroyCounters.get(lastDestroyIdx), repaired);
+            telemetry.recordProposal(repairCounters.get(lastRepairIdx), repaired);
+        }
+        return repaired ? candidate : null;
+    }
+
+    /**
+     * Records (in the telemetry, if it's enabled) that the solution recreated by the last step was accepted
+     */
+    public void recordAcceptance(boolean improvedIncumbent) {
+        if (telemetry == null)
+            return;
+        telemetry.recordAcceptance(destroyCounters.get(lastDestroyIdx), improvedIncumbent);
+        telemetry.recordAcceptance(repairCounters.get(lastRepairIdx), improvedIncumbent);
+    }
+}
@@ -0,0 +1,90 @@
+package solver.ls.RuinAndRecreate;
+
+import solver.ls.Solution;
+import solver.ls.VRPInstance;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Removes the customers whose removal saves the most distance (those that are the most out of the way on their
+ * routes). The choice is randomized, so that repeated calls don't always remove the same customers: the customers
+ * are ranked by their saving, and each removal picks the rank y^RANDOMNESS of the way down from the top (for y
+ * uniform in [0, 1)), which favors the top ranks more the larger RANDOMNESS is. After each removal, the savings of
+ * the removed customer's neighbors (the only ones that change, since they're now next to each other) are recomputed.
+ */
+public class WorstCostRemoval implements DestroyOperator {
+
+    private static final double RANDOMNESS = 3;
+
+    private final Random random;
+    // each customer's saving (as a float, in the high bits) and index (in the low bits), so sorting them sorts the
+    // customers by their saving without allocating
+    private long[] savings = new long[0];
+
+    public WorstCostRemoval(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public int destroy(Solution solution, VRPInstance instance, int numToRemove, int[] removed) {
+        int numCustomers = instance.getNumCustomers() - 1; // without the depot
+        if (savings.length != numCustomers)
+            savings = new long[numCustomers];
+        for (int customer = 1; customer <= numCustomers; customer++) {
+            savings[customer - 1] = savingEntry(solution, instance, customer);
+        }
+        Arrays.sort(savings);
+
+        int numRanked = numCustomers;
+        for (int i = 0; i < numToRemove; i++) {
+            int rank = numRanked - 1 - (int) (Math.pow(random.nextDouble(), RANDOMNESS) * numRanked);
+            int customer = (int) savings[rank];
+            System.arraycopy(savings, rank + 1, savings, rank, numRanked - rank - 1);
+            numRanked--;
+            removed[i] = customer;
+            int tourIdx = solution.customerTourIdx[customer];
+            int prev = solution.tour[tourIdx - 1];
+            int next = solution.tour[tourIdx + 1];
+            DestroyOperator.removeCustomer(solution, instance, customer);
+            if (prev != 0)
+                updateSaving(solution, instance, prev, numRanked);
+            if (next != 0)
+                updateSaving(solution, instance, next, numRanked);
+        }
+        return numToRemove;
+    }
+
+    // the customer's saving (as a float, in the high bits) and index (in the low bits)
+    private static long savingEntry(Solution solution, VRPInstance instance, int customer) {
+        int tourIdx = solution.customerTourIdx[customer];
+        int prev = solution.tour[tourIdx - 1];
+        int next = solution.tour[tourIdx + 1];
+        double saving = instance.distance.get(prev, customer) + instance.distance.get(customer, next)
+                - instance.distance.get(prev, next);
+        // non-negative floats sort in the same order as their bits
+        return ((long) Float.floatToIntBits((float) Math.max(saving, 0)) << 32) | customer;
+    }
+
+    /**
+     * Recomputes a customer's saving (once one of its neighbors was removed), moving it to its new rank among the
+     * first numRanked savings (which are still sorted, and include the customer)
+     */
+    private void updateSaving(Solution solution, VRPInstance instance, int customer, int numRanked) {
+        int rank = 0;
+        while ((int) savings[rank] != customer) {
+            rank++;
+        }
+        long entry = savingEntry(solution, instance, customer);
+        // shift the savings between its old and new rank along by one (like a step of insertion sort)
+        while (rank > 0 && savings[rank - 1] > entry) {
+            savings[rank] = savings[rank - 1];
+            rank--;
+        }
+        while (rank + 1 < numRanked && savings[rank + 1] < entry) {
+            savings[rank] = savings[rank + 1];
+            rank++;
+        }
+        savings[rank] = entry;
+    }
+}
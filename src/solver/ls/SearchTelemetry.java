@@ -0,0 +1,237 @@
+package solver.ls;
+
+import solver.ls.MovingStrategy.MovingStrategy;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what the search does: how many moves each kind of moving strategy proposes, how many of those are feasible,
+ * accepted and improve the incumbent, along with iterations, restarts from the incumbent and tolerance changes.
+ * When the search ruins and recreates solutions, the destroy and repair operators are counted instead: each step
+ * counts as a proposal by both of its operators (which is feasible if every removed customer could be reinserted).
+ * It also keeps a trace of the incumbent's distance over time and periodic snapshots of the counters.
+ * All counters are LongAdders, so every search (and neighborhood evaluation) thread can update them without locking.
+ * Strategies (and operators) are counted by class, so copies of a strategy (in different trajectories or tasks)
+ * share counters.
+ */
+public class SearchTelemetry {
+
+    public static class StrategyCounters {
+        final LongAdder proposed = new LongAdder();
+        final LongAdder feasible = new LongAdder();
+        final LongAdder accepted = new LongAdder();
+        final LongAdder improvedIncumbent = new LongAdder();
+
+        long[] values() {
+            return new long[]{proposed.sum(), feasible.sum(), accepted.sum(), improvedIncumbent.sum()};
+        }
+    }
+
+    private static final String[] STRATEGY_COUNTER_NAMES = {"proposed", "feasible", "accepted", "improvedIncumbent"};
+
+    private static class IncumbentUpdate {
+        final double time;
+        final double distance;
+        final int trajectoryIdx; // -1 for the initial solution
+
+        IncumbentUpdate(double time, double distance, int trajectoryIdx) {
+            this.time = time;
+            this.distance = distance;
+            this.trajectoryIdx = trajectoryIdx;
+        }
+    }
+
+    private static class Snapshot {
+        final double time;
+        final double incumbentDistance;
+        final long iterations;
+        final long restarts;
+        final long toleranceChanges;
+        final Map<String, long[]> strategies; // sorted by strategy name
+
+        Snapshot(double time, double incumbentDistance, long iterations, long restarts, long toleranceChanges, Map<String, long[]> strategies) {
+            this.time = time;
+            this.incumbentDistance = incumbentDistance;
+            this.iterations = iterations;
+            this.restarts = restarts;
+            this.toleranceChanges = toleranceChanges;
+            this.strategies = strategies;
+        }
+    }
+
+    private final Map<String, StrategyCounters> strategyCounters = new ConcurrentHashMap<>();
+    private final LongAdder iterations = new LongAdder();
+    private final LongAdder restarts = new LongAdder(); // restarts from the incumbent
+    private final LongAdder toleranceChanges = new LongAdder();
+    private final ConcurrentLinkedQueue<IncumbentUpdate> incumbentTrace = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Snapshot> snapshots = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @return the counters of the strategy's class (look these up once, rather than for every move)
+     */
+    public StrategyCounters countersFor(MovingStrategy strategy) {
+        return countersFor(strategy.getClass().getSimpleName());
+    }
+
+    /**
+     * @return the counters of the strategy (or ruin-and-recreate operator) with this name
+     */
+    public StrategyCounters countersFor(String name) {
+        return strategyCounters.computeIfAbsent(name, n -> new StrategyCounters());
+    }
+
+    public void recordProposal(StrategyCounters counters, boolean isFeasible) {
+        counters.proposed.increment();
+        if (isFeasible)
+            counters.feasible.increment();
+    }
+
+    public void recordAcceptance(StrategyCounters counters, boolean improvedIncumbent) {
+        counters.accepted.increment();
+        if (improvedIncumbent)
+            counters.improvedIncumbent.increment();
+    }
+
+    public void recordIteration() {
+        iterations.increment();
+    }
+
+    public void recordRestart(boolean toleranceChanged) {
+        restarts.increment();
+        if (toleranceChanged)
+            toleranceChanges.increment();
+    }
+
+    /**
+     * @param trajectoryIdx: the trajectory that found the new incumbent (-1 for the initial solution)
+     */
+    public void recordIncumbent(double time, double distance, int trajectoryIdx) {
+        incumbentTrace.add(new IncumbentUpdate(time, distance, trajectoryIdx));
+    }
+
+    public void snapshot(double time, double incumbentDistance) {
+        Map<String, long[]> strategies = new TreeMap<>();
+        for (Map.Entry<String, StrategyCounters> entry : strategyCounters.entrySet()) {
+            strategies.put(entry.getKey(), entry.getValue().values());
+        }
+        snapshots.add(new Snapshot(time, incumbentDistance, iterations.sum(), restarts.sum(), toleranceChanges.sum(), strategies));
+    }
+
+    /**
+     * Writes the snapshots and the incumbent trace, as JSON (or, if the file name ends in .csv, as two CSV files:
+     * the snapshots in the given file, and the incumbent trace in the same file with -incumbent.csv as its suffix).
+     * The last snapshot is taken as the final totals.
+     */
+    public void write(String fileName, String instanceName) throws IOException {
+        Path path = Paths.get(fileName);
+        if (path.getParent() != null)
+            Files.createDirectories(path.getParent());
+
+        if (fileName.endsWith(".csv")) {
+            writeSnapshotsCsv(path);
+            writeIncumbentTraceCsv(Paths.get(fileName.substring(0, fileName.length() - ".csv".length()) + "-incumbent.csv"));
+        } else {
+            writeJson(path, instanceName);
+        }
+    }
+
+    private void writeJson(Path path, String instanceName) throws IOException {
+        List<Snapshot> snapshotList = new ArrayList<>(snapshots);
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            out.println("{");
+            out.println("  \"instance\": \"" + instanceName.replace("\\", "\\\\").replace("\"", "\\\"") + "\",");
+            if (!snapshotList.isEmpty()) {
+                Snapshot last = snapshotList.get(snapshotList.size() - 1);
+                out.println("  \"time\": " + last.time + ",");
+                out.println("  \"iterations\": " + last.iterations + ",");
+                out.println("  \"iterationsPerSecond\": " + (last.time > 0 ? last.iterations / last.time : 0.0) + ",");
+                out.println("  \"restarts\": " + last.restarts + ",");
+                out.println("  \"toleranceChanges\": " + last.toleranceChanges + ",");
+                out.println("  \"strategies\": " + strategiesJson(last.strategies) + ",");
+            }
+
+            out.println("  \"snapshots\": [");
+            for (int i = 0; i < snapshotList.size(); i++) {
+                Snapshot snapshot = snapshotList.get(i);
+                out.print("    {\"time\": " + snapshot.time + ", \"incumbentDistance\": " + snapshot.incumbentDistance
+                        + ", \"iterations\": " + snapshot.iterations + ", \"restarts\": " + snapshot.restarts
+                        + ", \"toleranceChanges\": " + snapshot.toleranceChanges
+                        + ", \"strategies\": " + strategiesJson(snapshot.strategies) + "}");
+                out.println(i + 1 < snapshotList.size() ? "," : "");
+            }
+            out.println("  ],");
+
+            out.println("  \"incumbentTrace\": [");
+            List<IncumbentUpdate> trace = new ArrayList<>(incumbentTrace);
+            for (int i = 0; i < trace.size(); i++) {
+                IncumbentUpdate update = trace.get(i);
+                out.print("    {\"time\": " + update.time + ", \"distance\": " + update.distance + ", \"trajectory\": " + update.trajectoryIdx + "}");
+                out.println(i + 1 < trace.size() ? "," : "");
+            }
+            out.println("  ]");
+            out.println("}");
+        }
+    }
+
+    private static String strategiesJson(Map<String, long[]> strategies) {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, long[]> entry : strategies.entrySet()) {
+            if (json.length() > 1)
+                json.append(", ");
+            json.append('"').append(entry.getKey()).append("\": {");
+            for (int i = 0; i < STRATEGY_COUNTER_NAMES.length; i++) {
+                json.append(i > 0 ? ", " : "").append('"').append(STRATEGY_COUNTER_NAMES[i]).append("\": ").append(entry.getValue()[i]);
+            }
+            json.append('}');
+        }
+        return json.append('}').toString();
+    }
+
+    private void writeSnapshotsCsv(Path path) throws IOException {
+        List<Snapshot> snapshotList = new ArrayList<>(snapshots);
+        // strategies can first show up in later snapshots, so the columns come from the last one
+        List<String> strategyNames = snapshotList.isEmpty() ? List.of() : new ArrayList<>(snapshotList.get(snapshotList.size() - 1).strategies.keySet());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            StringBuilder header = new StringBuilder("time,incumbentDistance,iterations,restarts,toleranceChanges");
+            for (String name : strategyNames) {
+                for (String counter : STRATEGY_COUNTER_NAMES) {
+                    header.append(',').append(name).append('.').append(counter);
+                }
+            }
+            out.println(header);
+
+            for (Snapshot snapshot : snapshotList) {
+                StringBuilder row = new StringBuilder();
+                row.append(snapshot.time).append(',').append(snapshot.incumbentDistance).append(',').append(snapshot.iterations)
+                        .append(',').append(snapshot.restarts).append(',').append(snapshot.toleranceChanges);
+                for (String name : strategyNames) {
+                    long[] values = snapshot.strategies.getOrDefault(name, new long[STRATEGY_COUNTER_NAMES.length]);
+                    for (long value : values) {
+                        row.append(',').append(value);
+                    }
+                }
+                out.println(row);
+            }
+        }
+    }
+
+    private void writeIncumbentTraceCsv(Path path) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            out.println("time,distance,trajectory");
+            for (IncumbentUpdate update : incumbentTrace) {
+                out.println(update.time + "," + update.distance + "," + update.trajectoryIdx);
+            }
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package solver.ls;
+
+import solver.ls.MovingStrategy.*;
+import solver.ls.RuinAndRecreate.RuinAndRecreate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A single local search trajectory: starting from some solution, it keeps moving around the solution space
+ * (accepting any feasible move within its current tolerance of the current solution) until the search times out.
+ * Each step either applies the best of a neighborhood of moves proposed by the moving strategies (the default search
+ * mode), or ruins and recreates part of the current solution (see RuinAndRecreate). Every polish interval, the order
+ * of each of the current solution's routes is optimized as well (see IntraRouteOptimizer).
+ * Several trajectories can run at once (in portfolio mode), each with its own seeds, tolerance schedule and, when
+ * searching with moves, mix of moving strategies -- they only share the incumbent (the best solution found by any of
+ * them).
+ */
+public class SearchTrajectory implements Runnable {
+
+    private final VRPLocalSearch instance;
+    private final SharedIncumbent incumbent;
+    private final int trajectoryIdx;
+
+    private Solution currentSolution;
+    private double lastIncumbentUpdateTime; // last time this trajectory improved on the incumbent (or restarted from it)
+    private final double incumbentUpdateTimeout; // restart from the incumbent if it hasn't been improved on for this long
+    private final double initialToleranceScale;
+    private double tolerance; // moves that lengthen the current solution by less than this are accepted
+
+    /*
+     * if this flag is true, we get lists of moves from moving strategies.
+     * if it is false, we get single moves from the moving strategies
+     */
+    private boolean multipleMovesNeighborhood = false;
+
+    /*
+     * each task evaluates moves proposed by its own moving strategies. With a single task, the neighborhood is
+     * evaluated sequentially on the search thread; otherwise, the tasks are run concurrently by neighborhoodExecutor
+     * (there are no tasks when the search ruins and recreates solutions)
+     */
+    private final List<SolutionEvaluationTask> evaluationTasks;
+    private ExecutorService neighborhoodExecutor;
+    private final List<Future<Move>> evaluationResults = new ArrayList<>(); // reused by every call to move()
+    private SolutionEvaluationTask bestMoveTask; // the task that proposed the move returned by the last call to move()
+
+    private final SearchTelemetry telemetry; // null unless telemetry is enabled
+
+    private Solution lastSeenIncumbent; // to count the iterations since the incumbent last changed
+    private long iterationsWithoutNewIncumbent = 0;
+
+    private final TabuList tabuList; // null unless moves back to recently visited solutions are rejected
+
+    private final RuinAndRecreate ruinAndRecreate; // null unless each step ruins and recreates the current solution
+
+    private final IntraRouteOptimizer routeOptimizer; // null unless each step ruins and recreates the current solution
+    private final IntraRouteOptimizer polisher; // null unless routes are polished periodically
+    private double lastPolishTime;
+
+    /**
+     * @param trajectoryIdx: trajectory 0 searches like the only trajectory of a run without a portfolio (from the same
+     *                       start solution, with the same seeds, tolerance schedule, restart interval and mix of
+     *                       moving strategies), except that it restarts from the best solution found by any
+     *                       trajectory (which may not be its own); the others diversify their start solution, seeds
+     *                       and tolerance schedule (and, when searching with moves, their mix of moving strategies),
+     *                       and every other one restarts twice as often
+     */
+    public SearchTrajectory(VRPLocalSearch instance, SharedIncumbent incumbent, int trajectoryIdx, Solution startSolution) {
+        this.instance = instance;
+        this.incumbent = incumbent;
+        this.trajectoryIdx = trajectoryIdx;
+        this.telemetry = instance.telemetry;
+        this.currentSolution = startSolution.copy();
+        this.lastIncumbentUpdateTime = instance.watch.getTime();
+        this.lastPolishTime = lastIncumbentUpdateTime;
+        this.polisher = instance.options.polishInterval > 0 ? new IntraRouteOptimizer(instance, false) : null;
+
+        // halve or double trajectory 0's schedule for alternating trajectories (1, 1/2, 2, 1/4, 4, ...)
+        double scale = Math.pow(2, (trajectoryIdx + 1) / 2);
+        this.initialToleranceScale = trajectoryIdx % 2 == 1 ? 1 / scale : scale;
+        this.incumbentUpdateTimeout = trajectoryIdx % 2 == 1 ? instance.INCUMBENT_UPDATE_TIMEOUT / 2 : instance.INCUMBENT_UPDATE_TIMEOUT;
+
+        this.tabuList = instance.options.tabuTenure > 0 ? new TabuList(instance.options.tabuTenure) : null;
+        visit(currentSolution);
+
+        this.ruinAndRecreate = instance.options.ruinAndRecreate ? new RuinAndRecreate(taskSeed(0) + 1050, telemetry) : null;
+        this.routeOptimizer = ruinAndRecreate != null ? new IntraRouteOptimizer(instance, false) : null;
+
+        // ruin-and-recreate steps don't evaluate neighborhoods of moves, so they don't need any tasks
+        this.evaluationTasks = new ArrayList<>();
+        for (int i = 0; ruinAndRecreate == null && i < instance.options.neighborhoodThreads; i++) {
+            List<MovingStrategy> strategies = createMovingStrategies(i);
+            StrategyScheduler scheduler = instance.options.adaptiveStrategySelection
+                    ? new StrategyScheduler(strategies.size(), taskSeed(i) + 850) : null;
+            this.evaluationTasks.add(new SolutionEvaluationTask(strategies, instance, scheduler, tabuList));
+        }
+    }
+
+    /**
+     * Creates the moving strategies used by an evaluation task. Each task's strategies get their own seeds (derived
+     * from the configured seed), so every task has its own random number streams and runs are reproducible per seed
+     */
+    private List<MovingStrategy> createMovingStrategies(int taskIdx) {
+        long seed = taskSeed(taskIdx);
+        List<MovingStrategy> strategies = new ArrayList<>(List.of(
+                new TwoOpt(seed + 550),
+                new CrossRouteCustomerMove(seed + 350),
+                new RandomCustomerMovement(seed + 450),
+                new CrossRouteCustomerExchange(seed + 250),
+                new TwoOptStar(seed + 750),
+                new CrossExchange(seed + 950)
+        ));
+
+        // every other trajectory gets a second copy of one of the strategies, so it proposes twice as many of those moves
+        if (trajectoryIdx > 0) {
+            long extraSeed = seed + 650;
+            switch ((trajectoryIdx - 1) % 6) {
+                case 0:
+                    strategies.add(new TwoOpt(extraSeed));
+                    break;
+                case 1:
+                    strategies.add(new CrossRouteCustomerMove(extraSeed));
+                    break;
+                case 2:
+                    strategies.add(new RandomCustomerMovement(extraSeed));
+                    break;
+                case 3:
+                    strategies.add(new CrossRouteCustomerExchange(extraSeed));
+                    break;
+                case 4:
+                    strategies.add(new TwoOptStar(extraSeed));
+                    break;
+                default:
+                    strategies.add(new CrossExchange(extraSeed));
+                    break;
+            }
+        }
+        return strategies;
+    }
+
+    private long taskSeed(int taskIdx) {
+        return instance.options.seed + trajectoryIdx * 7_000_003L + taskIdx * 1_000_003L;
+    }
+
+    /**
+     * Moves the start solution away from where the other trajectories start, by applying a random walk of
+     * feasible moves (one per customer)
+     */
+    private void diversifyStart() {
+        List<MovingStrategy> strategies = createMovingStrategies(-1);
+        int numMoves = instance.getNumCustomers();
+        int numApplied = 0;
+        for (int attempt = 0; numApplied < numMoves && attempt < 10 * numMoves; attempt++) {
+            Move move = strategies.get(attempt % strategies.size()).proposeMove(currentSolution, instance);
+            if (move == null || !move.isFeasible)
+                continue;
+            move.apply(currentSolution, instance);
+            numApplied++;
+        }
+    }
+
+    @Override
+    public void run() {
+        start();
+        try {
+            // start moving around (until a stopping rule is met, or the search is interrupted)
+            while (!instance.isSearchOver() && !Thread.currentThread().isInterrupted()) {
+                step();
+            }
+        } finally {
+            stop();
+        }
+    }
+
+    /**
+     * Prepares the trajectory to search: sets its initial tolerance (and diversifies its start solution, and starts
+     * its neighborhood threads, if it uses them)
+     */
+    void start() {
+        if (trajectoryIdx > 0)
+            diversifyStart();
+
+        tolerance = initialToleranceScale * Math.pow(10, Math.min(3, Double.toString(incumbent.getTotalDistance()).length() - 1));
+
+        if (evaluationTasks.size() > 1) {
+            neighborhoodExecutor = Executors.newFixedThreadPool(evaluationTasks.size() - 1, runnable -> {
+                Thread thread = new Thread(runnable, "neighborhood-evaluation");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Performs a single iteration of the search: evaluates a neighborhood of the current solution and applies its
+     * best move (or ruins and recreates the current solution) if that's within the tolerance (restarting from the
+     * incumbent first, if it's time to)
+     */
+    void step() {
+        Timer watch = instance.watch;
+        if (tolerance < 10)
+            multipleMovesNeighborhood = true;
+        if (watch.getTime() - lastIncumbentUpdateTime >= incumbentUpdateTimeout) {
+            // restart from the best solution found by any trajectory
+            currentSolution.copyFrom(incumbent.get());
+            visit(currentSolution);
+            lastIncumbentUpdateTime = watch.getTime();
+            double previousTolerance = tolerance;
+            tolerance = Math.max(tolerance / 2, 0.5);
+            for (int i = 0; i < evaluationTasks.size(); i++) {
+                evaluationTasks.get(i).setMovingStrategies(createMovingStrategies(i));
+            }
+            if (telemetry != null)
+                telemetry.recordRestart(tolerance != previousTolerance);
+        }
+        if (polisher != null && watch.getTime() - lastPolishTime >= instance.options.polishInterval) {
+            polish();
+            lastPolishTime = watch.getTime();
+        }
+
+        if (ruinAndRecreate != null)
+            ruinAndRecreateStep();
+        else
+            applyBestMove();
+        if (telemetry != null)
+            telemetry.recordIteration();
+        if (instance.options.stallIterations > 0)
+            checkStall();
+    }
+
+    /**
+     * Applies the best move of a neighborhood of the current solution, if it's within the tolerance
+     */
+    private void applyBestMove() {
+        Move bestMove = move();
+        if (bestMove != null && bestMove.distanceChange < tolerance) {
+            bestMove.apply(currentSolution, instance);
+            visit(currentSolution);
+            boolean improvedIncumbent = incumbent.offer(currentSolution);
+            if (improvedIncumbent) {
+                lastIncumbentUpdateTime = instance.watch.getTime();
+                bestMoveTask.recordNewIncumbent();
+                instance.recordNewIncumbent(incumbent.get(), trajectoryIdx);
+            }
+            if (telemetry != null)
+                telemetry.recordAcceptance(bestMoveTask.getBestMoveCounters(), improvedIncumbent);
+        }
+    }
+
+    /**
+     * Ruins and recreates part of the current solution, optimizes the order of the routes that changed, and keeps the
+     * result if it's within the tolerance
+     */
+    private void ruinAndRecreateStep() {
+        Solution candidate = ruinAndRecreate.step(currentSolution, instance);
+        if (candidate == null)
+            return;
+        // only the routes the step changed can be improved (and those it has seen before are just looked up)
+        for (int r = 0; r < candidate.numRoutes(); r++) {
+            if (candidate.routeHash[r] != currentSolution.routeHash[r])
+                routeOptimizer.optimizeRoute(candidate, r);
+        }
+        if (candidate.totalDistance - currentSolution.totalDistance >= tolerance
+                || (tabuList != null && tabuList.isTabu(candidate.solutionHash)))
+            return;
+        currentSolution.copyFrom(candidate);
+        visit(currentSolution);
+        boolean improvedIncumbent = incumbent.offer(currentSolution);
+        if (improvedIncumbent) {
+            lastIncumbentUpdateTime = instance.watch.getTime();
+            instance.recordNewIncumbent(incumbent.get(), trajectoryIdx);
+        }
+        if (telemetry != null)
+            ruinAndRecreate.recordAcceptance(improvedIncumbent);
+    }
+
+    /**
+     * Asks the search to stop once this trajectory has run the configured number of iterations without any
+     * trajectory finding a new incumbent
+     */
+    private void checkStall() {
+        Solution best = incumbent.get();
+        if (best != lastSeenIncumbent) {
+            lastSeenIncumbent = best;
+            iterationsWithoutNewIncumbent = 0;
+        } else if (++iterationsWithoutNewIncumbent >= instance.options.stallIterations) {
+            instance.requestStop();
+        }
+    }
+
+    /**
+     * Optimizes the order of the customers within each route of the current solution (which only ever shortens it)
+     */
+    private void polish() {
+        if (polisher.optimize(currentSolution) >= 0)
+            return;
+        visit(currentSolution);
+        if (incumbent.offer(currentSolution)) {
+            lastIncumbentUpdateTime = instance.watch.getTime();
+            instance.recordNewIncumbent(incumbent.get(), trajectoryIdx);
+        }
+    }
+
+    // records that the search is at the solution (so moves back to it are rejected for a while)
+    private void visit(Solution solution) {
+        if (tabuList != null)
+            tabuList.visit(solution.solutionHash);
+    }
+
+    void stop() {
+        if (neighborhoodExecutor != null)
+            neighborhoodExecutor.shutdownNow();
+    }
+
+    /**
+     * Looks for a move within the solution space (the current solution isn't modified)
+     * @return the best feasible move found in the neighborhood, or null if there were no feasible moves
+     */
+    private Move move() {
+        // if we are looking at multiple moves, each moving strategy proposes 10 moves (rather than a single one)
+        int numMovesPerStrategy = multipleMovesNeighborhood ? 10 : 1;
+        for (SolutionEvaluationTask task : evaluationTasks) {
+            task.setCurrentSolution(currentSolution, numMovesPerStrategy);
+        }
+
+        bestMoveTask = evaluationTasks.get(0);
+        if (neighborhoodExecutor == null)
+            return evaluationTasks.get(0).call();
+
+        // the other tasks run on the executor while the search thread runs the first one itself
+        List<Future<Move>> results = evaluationResults;
+        results.clear();
+        for (int i = 1; i < evaluationTasks.size(); i++) {
+            results.add(neighborhoodExecutor.submit(evaluationTasks.get(i)));
+        }
+        Move bestMove = evaluationTasks.get(0).call();
+
+        // combine the tasks' results in task order (with ties going to the earlier task), so the move picked
+        // doesn't depend on the order in which the tasks happened to finish
+        for (int i = 0; i < results.size(); i++) {
+            Move move;
+            try {
+                move = results.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error: neighborhood evaluation failed", e.getCause());
+            }
+            if (move != null && (bestMove == null || move.distanceChange < bestMove.distanceChange)) {
+                bestMove = move;
+                bestMoveTask = evaluationTasks.get(i + 1);
+            }
+        }
+        return bestMove;
+    }
+}
@@ -0,0 +1,46 @@
+package solver.ls;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The best solution found so far, shared by all search trajectories. Only private copies of solutions are
+ * published (and they are never modified afterwards), so the incumbent can be read and replaced without locking.
+ */
+public class SharedIncumbent {
+
+    private final AtomicReference<Solution> bestSolution;
+
+    public SharedIncumbent(Solution initialSolution) {
+        this.bestSolution = new AtomicReference<>(initialSolution.copy());
+    }
+
+    /**
+     * @return the incumbent solution (which must not be modified -- copy it to move away from it)
+     */
+    public Solution get() {
+        return bestSolution.get();
+    }
+
+    public double getTotalDistance() {
+        return bestSolution.get().totalDistance;
+    }
+
+    /**
+     * Publishes a copy of the solution if it is better than the incumbent
+     *
+     * @return whether the solution replaced the incumbent
+     */
+    public boolean offer(Solution solution) {
+        Solution incumbent = bestSolution.get();
+        if (solution.totalDistance >= incumbent.totalDistance)
+            return false; // checked before copying, since most solutions offered by the other trajectories lose
+
+        Solution copy = solution.copy();
+        while (!bestSolution.compareAndSet(incumbent, copy)) {
+            incumbent = bestSolution.get();
+            if (copy.totalDistance >= incumbent.totalDistance)
+                return false;
+        }
+        return true;
+    }
+}
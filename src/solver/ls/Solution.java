@@ -1,44 +1,404 @@
 package solver.ls;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Solution {
 
-    public List<List<Integer>> routes;
+    /*
+     * all routes are stored back to back in a single "giant tour" of customers: route r occupies
+     * tour[routeStart[r]] ... tour[routeStart[r + 1] - 1] (and begins and ends at the depot, 0)
+     * (e.g. routes 0 -> 1 -> 2 -> 0 and 0 -> 3 -> 0 are stored as tour = [0, 1, 2, 0, 0, 3, 0], routeStart = [0, 4, 7])
+     */
+    public int[] tour;
+    public int[] routeStart; // has numRoutes + 1 elements: routeStart[numRoutes] is the length of the tour
+
+    // cached per-route load (total demand served) and length (total distance travelled)
+    public int[] routeLoad;
+    public double[] routeLength;
+
+    // cached cumulative load and length along each route: prefixLoad[i] / prefixLength[i] is the demand served /
+    // distance travelled by the vehicle from the start of its route up to (and including) the location at tour[i]
+    public int[] prefixLoad;
+    public double[] prefixLength;
+
+    // cached hash of each route's sequence of arcs (the sum of their keys, see arcKey), so a route can be recognized
+    // without comparing its customers: prefixHash[i] is the sum over the arcs from the start of its route up to the
+    // location at tour[i]
+    public long[] routeHash;
+    public long[] prefixHash;
+    public long solutionHash; // the sum of the route hashes (so it doesn't depend on the order of the routes)
+
+    // where each customer currently is: customerRoute[c] is the route serving customer c, and customerTourIdx[c] is
+    // its index in the tour (the entries for the depot are meaningless, since the depot is on every route)
+    public int[] customerRoute;
+    public int[] customerTourIdx;
+
     public double totalDistance;
     public boolean isFeasible;
 
+    private int[] segmentBuffer = new int[0]; // scratch space for swapSegments (not copied with the solution)
+
     public Solution(List<List<Integer>> routes) {
-        this.routes = routes;
+        int tourLength = 0;
+        for (List<Integer> route : routes) {
+            tourLength += route.size();
+        }
+
+        int maxCustomer = 0;
+        for (List<Integer> route : routes) {
+            for (int customer : route) {
+                maxCustomer = Math.max(maxCustomer, customer);
+            }
+        }
+
+        this.tour = new int[tourLength];
+        this.routeStart = new int[routes.size() + 1];
+        this.customerRoute = new int[maxCustomer + 1];
+        this.customerTourIdx = new int[maxCustomer + 1];
+        int tourIdx = 0;
+        for (int r = 0; r < routes.size(); r++) {
+            this.routeStart[r] = tourIdx;
+            for (int customer : routes.get(r)) {
+                this.customerRoute[customer] = r;
+                this.customerTourIdx[customer] = tourIdx;
+                this.tour[tourIdx++] = customer;
+            }
+        }
+        this.routeStart[routes.size()] = tourIdx;
+
+        this.routeLoad = new int[routes.size()];
+        this.routeLength = new double[routes.size()];
+        this.prefixLoad = new int[tourLength];
+        this.prefixLength = new double[tourLength];
+        this.routeHash = new long[routes.size()];
+        this.prefixHash = new long[tourLength];
     }
 
     public Solution(List<List<Integer>> routes, double totalDistance) {
-        this.routes = routes;
+        this(routes);
         this.totalDistance = totalDistance;
     }
 
     public Solution(List<List<Integer>> routes, double totalDistance, boolean isFeasible) {
-        this.routes = routes;
+        this(routes);
         this.totalDistance = totalDistance;
         this.isFeasible = isFeasible;
     }
 
+    private Solution(Solution other) {
+        this.tour = other.tour.clone();
+        this.routeStart = other.routeStart.clone();
+        this.routeLoad = other.routeLoad.clone();
+        this.routeLength = other.routeLength.clone();
+        this.prefixLoad = other.prefixLoad.clone();
+        this.prefixLength = other.prefixLength.clone();
+        this.routeHash = other.routeHash.clone();
+        this.prefixHash = other.prefixHash.clone();
+        this.customerRoute = other.customerRoute.clone();
+        this.customerTourIdx = other.customerTourIdx.clone();
+        this.solutionHash = other.solutionHash;
+        this.totalDistance = other.totalDistance;
+        this.isFeasible = other.isFeasible;
+    }
+
     public Solution copy() {
-        List<List<Integer>> copyRoutes = new ArrayList<>();
-        for (List<Integer> route : this.routes) {
-            copyRoutes.add(new ArrayList<>(route));
+        return new Solution(this);
+    }
+
+    /**
+     * Overwrites this solution with a copy of another one, reusing this solution's arrays where they are the right
+     * size (so that a search can restart from the incumbent without allocating a new solution)
+     */
+    public void copyFrom(Solution other) {
+        tour = copyInto(other.tour, tour);
+        routeStart = copyInto(other.routeStart, routeStart);
+        routeLoad = copyInto(other.routeLoad, routeLoad);
+        routeLength = copyInto(other.routeLength, routeLength);
+        prefixLoad = copyInto(other.prefixLoad, prefixLoad);
+        prefixLength = copyInto(other.prefixLength, prefixLength);
+        routeHash = copyInto(other.routeHash, routeHash);
+        prefixHash = copyInto(other.prefixHash, prefixHash);
+        customerRoute = copyInto(other.customerRoute, customerRoute);
+        customerTourIdx = copyInto(other.customerTourIdx, customerTourIdx);
+        solutionHash = other.solutionHash;
+        totalDistance = other.totalDistance;
+        isFeasible = other.isFeasible;
+    }
+
+    // copies source into destination (or into a new array, if destination isn't the same length)
+    private static int[] copyInto(int[] source, int[] destination) {
+        if (destination.length != source.length)
+            return source.clone();
+        System.arraycopy(source, 0, destination, 0, source.length);
+        return destination;
+    }
+
+    private static double[] copyInto(double[] source, double[] destination) {
+        if (destination.length != source.length)
+            return source.clone();
+        System.arraycopy(source, 0, destination, 0, source.length);
+        return destination;
+    }
+
+    private static long[] copyInto(long[] source, long[] destination) {
+        if (destination.length != source.length)
+            return source.clone();
+        System.arraycopy(source, 0, destination, 0, source.length);
+        return destination;
+    }
+
+    public int numRoutes() {
+        return routeStart.length - 1;
+    }
+
+    /**
+     * @return the number of locations on the route (including the depot at either end)
+     */
+    public int routeSize(int routeIdx) {
+        return routeStart[routeIdx + 1] - routeStart[routeIdx];
+    }
+
+    public int customerAt(int routeIdx, int customerIdx) {
+        return tour[routeStart[routeIdx] + customerIdx];
+    }
+
+    public void setCustomerAt(int routeIdx, int customerIdx, int customer) {
+        int tourIdx = routeStart[routeIdx] + customerIdx;
+        tour[tourIdx] = customer;
+        customerRoute[customer] = routeIdx;
+        customerTourIdx[customer] = tourIdx;
+    }
+
+    public int routeOf(int customer) {
+        return customerRoute[customer];
+    }
+
+    /**
+     * @return the position of a customer within its route
+     */
+    public int positionOf(int customer) {
+        return customerTourIdx[customer] - routeStart[customerRoute[customer]];
+    }
+
+    /**
+     * Reverses the order of the customers at positions startCustomerIdx ... endCustomerIdx (inclusive) of a route
+     */
+    public void reverse(int routeIdx, int startCustomerIdx, int endCustomerIdx) {
+        int i = routeStart[routeIdx] + startCustomerIdx;
+        int j = routeStart[routeIdx] + endCustomerIdx;
+        while (i < j) {
+            int temp = tour[i];
+            tour[i] = tour[j];
+            tour[j] = temp;
+            customerTourIdx[tour[i]] = i;
+            customerTourIdx[tour[j]] = j;
+            i++;
+            j--;
+        }
+    }
+
+    /**
+     * Removes the customer at a position of a route (everything after it in the tour shifts left by one)
+     *
+     * @return the removed customer
+     */
+    public int removeCustomer(int routeIdx, int customerIdx) {
+        int tourIdx = routeStart[routeIdx] + customerIdx;
+        int customer = tour[tourIdx];
+        int tourLength = routeStart[numRoutes()];
+        System.arraycopy(tour, tourIdx + 1, tour, tourIdx, tourLength - tourIdx - 1);
+        // cumulative values are relative to the start of each route, so those of the other routes just shift along
+        System.arraycopy(prefixLoad, tourIdx + 1, prefixLoad, tourIdx, tourLength - tourIdx - 1);
+        System.arraycopy(prefixLength, tourIdx + 1, prefixLength, tourIdx, tourLength - tourIdx - 1);
+        System.arraycopy(prefixHash, tourIdx + 1, prefixHash, tourIdx, tourLength - tourIdx - 1);
+        for (int r = routeIdx + 1; r < routeStart.length; r++) {
+            routeStart[r]--;
         }
-        return new Solution(copyRoutes, this.totalDistance, this.isFeasible);
+        updateTourIndices(tourIdx, tourLength - 1);
+        return customer;
+    }
+
+    /**
+     * Inserts a customer before the location currently at a position of a route (everything after it in the
+     * tour shifts right by one)
+     */
+    public void insertCustomer(int routeIdx, int customerIdx, int customer) {
+        int tourIdx = routeStart[routeIdx] + customerIdx;
+        int tourLength = routeStart[numRoutes()];
+        if (tourLength == tour.length) {
+            tour = Arrays.copyOf(tour, tourLength + 1);
+            prefixLoad = Arrays.copyOf(prefixLoad, tourLength + 1);
+            prefixLength = Arrays.copyOf(prefixLength, tourLength + 1);
+            prefixHash = Arrays.copyOf(prefixHash, tourLength + 1);
+        }
+        System.arraycopy(tour, tourIdx, tour, tourIdx + 1, tourLength - tourIdx);
+        System.arraycopy(prefixLoad, tourIdx, prefixLoad, tourIdx + 1, tourLength - tourIdx);
+        System.arraycopy(prefixLength, tourIdx, prefixLength, tourIdx + 1, tourLength - tourIdx);
+        System.arraycopy(prefixHash, tourIdx, prefixHash, tourIdx + 1, tourLength - tourIdx);
+        tour[tourIdx] = customer;
+        for (int r = routeIdx + 1; r < routeStart.length; r++) {
+            routeStart[r]++;
+        }
+
+        if (customer >= customerRoute.length) {
+            customerRoute = Arrays.copyOf(customerRoute, customer + 1);
+            customerTourIdx = Arrays.copyOf(customerTourIdx, customer + 1);
+        }
+        customerRoute[customer] = routeIdx;
+        updateTourIndices(tourIdx, tourLength + 1);
+    }
+
+    /**
+     * Gives a customer another index (which no other customer may have), keeping it where it is on its route. The
+     * route's cached load and length stay the same, but its hash is recomputed (its arcs' keys depend on the indices)
+     */
+    public void renumberCustomer(int customer, int newCustomer) {
+        if (newCustomer >= customerRoute.length) {
+            customerRoute = Arrays.copyOf(customerRoute, newCustomer + 1);
+            customerTourIdx = Arrays.copyOf(customerTourIdx, newCustomer + 1);
+        }
+        int routeIdx = customerRoute[customer];
+        int tourIdx = customerTourIdx[customer];
+        tour[tourIdx] = newCustomer;
+        customerRoute[newCustomer] = routeIdx;
+        customerTourIdx[newCustomer] = tourIdx;
+
+        int end = routeStart[routeIdx + 1];
+        for (; tourIdx < end; tourIdx++) { // a customer is never at the start of its route (the depot is)
+            prefixHash[tourIdx] = prefixHash[tourIdx - 1] + arcKey(tour[tourIdx - 1], tour[tourIdx]);
+        }
+        solutionHash += prefixHash[end - 1] - routeHash[routeIdx];
+        routeHash[routeIdx] = prefixHash[end - 1];
+    }
+
+    /**
+     * Exchanges the customers at positions start1Idx ... end1Idx - 1 of one route with those at positions
+     * start2Idx ... end2Idx - 1 of another route (either segment may be empty; each keeps its order). The cached
+     * loads and lengths of the two routes are not updated.
+     */
+    public void swapSegments(int route1Idx, int start1Idx, int end1Idx, int route2Idx, int start2Idx, int end2Idx) {
+        if (route1Idx > route2Idx) {
+            swapSegments(route2Idx, start2Idx, end2Idx, route1Idx, start1Idx, end1Idx);
+            return;
+        }
+        // in the tour: ... [segment 1] middle [segment 2] ... becomes ... [segment 2] middle [segment 1] ...
+        int segment1TourIdx = routeStart[route1Idx] + start1Idx;
+        int segment2TourIdx = routeStart[route2Idx] + start2Idx;
+        int length1 = end1Idx - start1Idx;
+        int length2 = end2Idx - start2Idx;
+        int middleTourIdx = segment1TourIdx + length1;
+        int middleLength = segment2TourIdx - middleTourIdx;
+
+        if (segmentBuffer.length < length1 + length2)
+            segmentBuffer = new int[length1 + length2];
+        System.arraycopy(tour, segment1TourIdx, segmentBuffer, 0, length1);
+        System.arraycopy(tour, segment2TourIdx, segmentBuffer, length1, length2);
+        // cumulative values are relative to the start of each route, so those of the routes in between just shift along
+        int shift = length2 - length1;
+        System.arraycopy(tour, middleTourIdx, tour, middleTourIdx + shift, middleLength);
+        System.arraycopy(prefixLoad, middleTourIdx, prefixLoad, middleTourIdx + shift, middleLength);
+        System.arraycopy(prefixLength, middleTourIdx, prefixLength, middleTourIdx + shift, middleLength);
+        System.arraycopy(prefixHash, middleTourIdx, prefixHash, middleTourIdx + shift, middleLength);
+        System.arraycopy(segmentBuffer, length1, tour, segment1TourIdx, length2);
+        System.arraycopy(segmentBuffer, 0, tour, segment2TourIdx + shift, length1);
+        for (int r = route1Idx + 1; r <= route2Idx; r++) {
+            routeStart[r] += shift;
+        }
+
+        for (int k = 0; k < length1; k++) {
+            customerRoute[segmentBuffer[k]] = route2Idx;
+        }
+        for (int k = length1; k < length1 + length2; k++) {
+            customerRoute[segmentBuffer[k]] = route1Idx;
+        }
+        updateTourIndices(segment1TourIdx, segment2TourIdx + length2);
+    }
+
+    // records the tour indices of the customers at tour[fromTourIdx] ... tour[toTourIdx - 1] (after they were shifted)
+    private void updateTourIndices(int fromTourIdx, int toTourIdx) {
+        for (int tourIdx = fromTourIdx; tourIdx < toTourIdx; tourIdx++) {
+            customerTourIdx[tour[tourIdx]] = tourIdx;
+        }
+    }
+
+    /**
+     * Recomputes the cached load and length of a single route
+     */
+    public void updateRouteCache(int routeIdx, VRPInstance instance) {
+        updateRouteCache(routeIdx, 0, instance);
+    }
+
+    /**
+     * Recomputes the cached cumulative load and length of a route from a position onwards (the values before
+     * that position are unchanged by anything that only modified the route from that position onwards)
+     */
+    public void updateRouteCache(int routeIdx, int fromCustomerIdx, VRPInstance instance) {
+        int start = routeStart[routeIdx];
+        int end = routeStart[routeIdx + 1];
+        int tourIdx = start + Math.max(fromCustomerIdx, 0);
+        if (tourIdx == start) {
+            prefixLoad[start] = instance.demandOfCustomer[tour[start]];
+            prefixLength[start] = 0.0;
+            prefixHash[start] = 0L;
+            tourIdx++;
+        }
+        for (; tourIdx < end; tourIdx++) {
+            prefixLoad[tourIdx] = prefixLoad[tourIdx - 1] + instance.demandOfCustomer[tour[tourIdx]];
+            prefixLength[tourIdx] = prefixLength[tourIdx - 1] + instance.distance.get(tour[tourIdx - 1], tour[tourIdx]);
+            prefixHash[tourIdx] = prefixHash[tourIdx - 1] + arcKey(tour[tourIdx - 1], tour[tourIdx]);
+        }
+        routeLoad[routeIdx] = prefixLoad[end - 1];
+        routeLength[routeIdx] = prefixLength[end - 1];
+        solutionHash += prefixHash[end - 1] - routeHash[routeIdx];
+        routeHash[routeIdx] = prefixHash[end - 1];
+    }
+
+    /**
+     * @return a pseudo-random key for the arc between two locations (the same in either direction, like the arc's
+     * length). A route's hash sums the keys of its arcs, so two routes only share a hash (barring a 1 in 2^64
+     * collision) if they visit the same customers in the same order, or in reverse
+     */
+    public static long arcKey(int location1, int location2) {
+        long arc = location1 < location2 ? ((long) location2 << 32) | location1 : ((long) location1 << 32) | location2;
+        // splitmix64's finalizer: every bit of the arc affects every bit of the key
+        arc = (arc ^ (arc >>> 30)) * 0xBF58476D1CE4E5B9L;
+        arc = (arc ^ (arc >>> 27)) * 0x94D049BB133111EBL;
+        return arc ^ (arc >>> 31);
+    }
+
+    /**
+     * Recomputes the cached load and length of every route
+     */
+    public void updateRouteCaches(VRPInstance instance) {
+        for (int r = 0; r < numRoutes(); r++) {
+            updateRouteCache(r, instance);
+        }
+    }
+
+    public List<Integer> getRoute(int routeIdx) {
+        List<Integer> route = new ArrayList<>(routeSize(routeIdx));
+        for (int tourIdx = routeStart[routeIdx]; tourIdx < routeStart[routeIdx + 1]; tourIdx++) {
+            route.add(tour[tourIdx]);
+        }
+        return route;
+    }
+
+    public List<List<Integer>> getRoutes() {
+        List<List<Integer>> routes = new ArrayList<>(numRoutes());
+        for (int r = 0; r < numRoutes(); r++) {
+            routes.add(getRoute(r));
+        }
+        return routes;
     }
 
     public String getSolutionString() {
         StringBuilder result = new StringBuilder("0 "); // begin with 0 (since local search doesn't provide optimality guarantees)
 
-        for (List<Integer> route : this.routes) {
-            for (int location : route) {
-                result.append(location).append(" ");
-            }
+        int tourLength = routeStart[numRoutes()];
+        for (int tourIdx = 0; tourIdx < tourLength; tourIdx++) {
+            result.append(tour[tourIdx]).append(" ");
         }
 
         return result.toString().trim(); // remove whitespace from the end
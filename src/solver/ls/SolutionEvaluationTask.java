@@ -1,22 +1,134 @@
 package solver.ls;
 
+import solver.ls.MovingStrategy.Move;
+import solver.ls.MovingStrategy.MovingStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
 
-public class SolutionEvaluationTask implements Callable<Solution> {
+/**
+ * Evaluates a part of the neighborhood of the current solution: each of the task's moving strategies proposes
+ * moves away from the current solution, and the best feasible one is kept. Each task has its own moving
+ * strategies (and therefore its own random number streams), so tasks can run concurrently without sharing any
+ * mutable state -- the current solution is only read while tasks are running.
+ */
+public class SolutionEvaluationTask implements Callable<Move> {
 
-    private Solution solution;
+    private List<MovingStrategy> movingStrategies;
     private final VRPLocalSearch vrpLocalSearch;
 
-    public SolutionEvaluationTask(Solution prevSolution, VRPLocalSearch vrpLocalSearch) {
-        this.solution = prevSolution;
+    // splits each neighborhood's moves between the strategies (null to have every strategy propose the same number)
+    private final StrategyScheduler scheduler;
+    private int[] movesPerStrategy;
+
+    private final TabuList tabuList; // moves to the solutions in it are skipped (null to skip none)
+
+    // telemetry counters of each moving strategy (null unless telemetry is enabled)
+    private List<SearchTelemetry.StrategyCounters> strategyCounters;
+
+    private Solution currentSolution;
+    private int numMovesPerStrategy;
+    private int bestMoveStrategyIdx; // the strategy that proposed the move returned by the last call
+
+    public SolutionEvaluationTask(List<MovingStrategy> movingStrategies, VRPLocalSearch vrpLocalSearch) {
+        this(movingStrategies, vrpLocalSearch, null);
+    }
+
+    /**
+     * @param scheduler: adaptive selection of the strategies (null to use every strategy equally); it must have been
+     *                   created for as many strategies as this task has
+     */
+    public SolutionEvaluationTask(List<MovingStrategy> movingStrategies, VRPLocalSearch vrpLocalSearch, StrategyScheduler scheduler) {
+        this(movingStrategies, vrpLocalSearch, scheduler, null);
+    }
+
+    /**
+     * @param tabuList: the trajectory's recently visited solutions, which moves mustn't lead back to (null to allow
+     *                  any move); it is only read while the task runs
+     */
+    public SolutionEvaluationTask(List<MovingStrategy> movingStrategies, VRPLocalSearch vrpLocalSearch,
+                                  StrategyScheduler scheduler, TabuList tabuList) {
         this.vrpLocalSearch = vrpLocalSearch;
+        this.scheduler = scheduler;
+        this.tabuList = tabuList;
+        setMovingStrategies(movingStrategies);
     }
 
+    public void setMovingStrategies(List<MovingStrategy> movingStrategies) {
+        this.movingStrategies = movingStrategies;
+        this.movesPerStrategy = new int[movingStrategies.size()];
+        SearchTelemetry telemetry = vrpLocalSearch.telemetry;
+        if (telemetry != null) {
+            strategyCounters = new ArrayList<>(movingStrategies.size());
+            for (MovingStrategy strategy : movingStrategies) {
+                strategyCounters.add(telemetry.countersFor(strategy));
+            }
+        }
+    }
+
+    /**
+     * @return the telemetry counters of the strategy that proposed the move returned by the last call (null unless
+     * telemetry is enabled)
+     */
+    public SearchTelemetry.StrategyCounters getBestMoveCounters() {
+        return strategyCounters == null ? null : strategyCounters.get(bestMoveStrategyIdx);
+    }
+
+    /**
+     * Lets the scheduler (if there is one) know that the move returned by the last call made a new incumbent
+     */
+    public void recordNewIncumbent() {
+        if (scheduler != null)
+            scheduler.recordNewIncumbent(bestMoveStrategyIdx);
+    }
+
+    /**
+     * Sets the solution whose neighborhood is evaluated the next time this task is called
+     */
+    public void setCurrentSolution(Solution currentSolution, int numMovesPerStrategy) {
+        this.currentSolution = currentSolution;
+        this.numMovesPerStrategy = numMovesPerStrategy;
+    }
+
+    /**
+     * @return the best feasible move proposed by this task's moving strategies that doesn't lead to a tabu solution,
+     * or null if there were none
+     */
     @Override
-    public Solution call() {
-        // compute feasibility and total distance
-        solution.isFeasible = vrpLocalSearch.isSolutionFeasible(solution);
-        vrpLocalSearch.solutionTotalDistance(solution);
-        return solution;
+    public Move call() {
+        boolean isTimed = false;
+        if (scheduler == null) {
+            Arrays.fill(movesPerStrategy, numMovesPerStrategy);
+        } else {
+            scheduler.allocate(movingStrategies.size() * numMovesPerStrategy, movesPerStrategy);
+            isTimed = scheduler.isTimedIteration();
+        }
+
+        SearchTelemetry telemetry = vrpLocalSearch.telemetry;
+        Move bestMove = null;
+        for (int s = 0; s < movingStrategies.size(); s++) {
+            MovingStrategy strategy = movingStrategies.get(s);
+            long startTime = isTimed ? System.nanoTime() : 0;
+            for (int i = 0; i < movesPerStrategy[s]; i++) {
+                Move move = strategy.proposeMove(currentSolution, vrpLocalSearch);
+                if (telemetry != null && move != null)
+                    telemetry.recordProposal(strategyCounters.get(s), move.isFeasible);
+                if (move == null || !move.isFeasible)
+                    continue;
+                if (bestMove == null || move.distanceChange < bestMove.distanceChange) {
+                    // only the moves that would be the best so far are checked, since that takes hashing their arcs
+                    if (tabuList != null && tabuList.isTabu(currentSolution.solutionHash + move.hashChange(currentSolution)))
+                        continue;
+                    bestMove = move;
+                    bestMoveStrategyIdx = s;
+                    strategy.retain(move); // so the strategy's next proposals don't overwrite it
+                }
+            }
+            if (isTimed)
+                scheduler.recordTime(s, movesPerStrategy[s], System.nanoTime() - startTime);
+        }
+        return bestMove;
     }
 }
@@ -11,10 +11,10 @@ public class SolutionFileGenerator {
         BufferedWriter writer = new BufferedWriter(new FileWriter(filename));
         String finalString = Double.toString(computedDistance) + " " + Integer.toString(flag) + "\n";
 
-        for (List<Integer> route : solution.routes) {
+        for (int r = 0; r < solution.numRoutes(); r++) {
             List<String> routeStringList = new ArrayList<>();
-            for (int customer : route) {
-                routeStringList.add(Integer.toString(customer));
+            for (int tourIdx = solution.routeStart[r]; tourIdx < solution.routeStart[r + 1]; tourIdx++) {
+                routeStringList.add(Integer.toString(solution.tour[tourIdx]));
             }
             finalString += String.join(" ", routeStringList) + "\n";
         }
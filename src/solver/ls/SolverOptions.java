@@ -0,0 +1,282 @@
+package solver.ls;
+
+import solver.ls.ConstructionHeuristic.ConstructionHeuristic;
+import solver.ls.DistanceMatrix.DistanceMatrix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Run-time configuration of the solver. Main (and BatchSolver) set these from the command line options that follow
+ * the instance file.
+ */
+public class SolverOptions {
+
+    public static final String USAGE = String.join("\n",
+            "Options:",
+            "  --time-limit <s>             seconds of search before the best solution found is returned (default 295)",
+            "  --stall-time <s>             stop early after this many seconds without a new best solution (default 0: never)",
+            "  --stall-iterations <n>       stop early once a search trajectory has run this many iterations without a new",
+            "                               best solution (default 0: never)",
+            "  --target <distance>          stop early once a solution at least this short is found",
+            "  --bound <distance>           a lower bound (or best known distance) for the instance: with --gap, stop early",
+            "                               once a solution within the gap of it is found",
+            "  --gap <percent>              with --bound, how far above the bound a solution can be to stop (default 0)",
+            "  --restart-interval <s>       restart from the best solution after this many seconds without a new one",
+            "                               (default 10)",
+            "  --seed <n>                   seed for the search's random number streams (default 0)",
+            "  --search <mode>              moves (default: each step applies the best of the moving strategies' moves) or",
+            "                               ruin-recreate (each step removes up to 30% of the customers and inserts them again)",
+            "  --neighborhood-threads <n>   with --search moves, number of threads that generate and evaluate candidate",
+            "                               moves (default 1)",
+            "  --portfolio <n>              number of independent search trajectories run in parallel (default 1)",
+            "  --neighbors <k>              only propose moves next to one of a customer's k nearest customers (default 0: off)",
+            "  --distance-matrix <type>     how distances are stored: dense, triangular, float-triangular, euclidean",
+            "                               (computed on the fly) or auto (default: picks one based on the instance size)",
+            "  --distance-cache <dir>       keep the distance matrix (and neighbor lists) in files in this directory, which",
+            "                               later runs (and other processes) on the same instance map instead of computing",
+            "  --construction <type>        how the initial solution is built: savings, sweep, bin-packing, cp (needs CP",
+            "                               Optimizer) or auto (default: the best native one, falling back to cp)",
+            "  --warm-start <file>          start from the solution in this .sol file or results log (the last one logged",
+            "                               for the instance), repaired to fit the instance; falls back to --construction",
+            "  --polish-interval <s>        every this many seconds, optimize the order of each route of the current solution",
+            "                               with 2-opt and Or-opt moves (default 1, 0 to never)",
+            "  --tabu-tenure <n>            reject moves back to any of the last n solutions a search trajectory visited",
+            "                               (default 0: off)",
+            "  --strategy-selection <mode>  with --search moves, uniform (default: every moving strategy proposes the same",
+            "                               number of moves) or adaptive (strategies that find more new incumbents per unit",
+            "                               of time propose more)",
+            "  --stream <file>              write every new best solution as a JSON line to this file (- for standard",
+            "                               output) as soon as it is found",
+            "  --telemetry <file>           write search telemetry (per-strategy move counts, snapshots and the incumbent's",
+            "                               distance over time) to this file, as JSON (or as CSV, if it ends in .csv)",
+            "  --telemetry-interval <s>     seconds between telemetry snapshots (default 1)"
+    );
+
+    public double timeLimit = 295.0;
+    public double stallTime = 0; // 0 to never stop for lack of improvement (in time)
+    public long stallIterations = 0; // 0 to never stop for lack of improvement (in iterations)
+    public double target = Double.NEGATIVE_INFINITY; // stop once the best solution is this short
+    public double bound = Double.NaN; // NaN if no bound is known
+    public double gapPercent = 0;
+    public double restartInterval = 10.0;
+    public long seed = 0;
+    public boolean ruinAndRecreate = false; // true to ruin and recreate solutions instead of applying moves
+    public int neighborhoodThreads = 1; // with more than 1 thread, each thread contributes its own candidate moves
+    public int portfolioThreads = 1; // each trajectory uses its own neighborhoodThreads
+    public int numNeighbors = 0; // size of the granular neighbor lists (0 to choose destinations uniformly at random)
+    public DistanceMatrix.Type distanceMatrixType = DistanceMatrix.Type.AUTO;
+    public String distanceCacheDir = null; // null to compute the distance matrix (and neighbor lists) on every run
+    public ConstructionHeuristic.Type constructionType = ConstructionHeuristic.Type.AUTO;
+    public String warmStartFile = null; // null to always construct the initial solution from scratch
+    public double polishInterval = 1; // 0 to never polish routes
+    public int tabuTenure = 0; // 0 to accept moves back to recently visited solutions
+    public boolean adaptiveStrategySelection = false;
+    public String streamFile = null; // null to not stream new incumbents ("-" for standard output)
+    public String telemetryFile = null; // null to turn telemetry off
+    public double telemetryInterval = 1.0;
+
+    /**
+     * Parses command line options (of the form --name value)
+     *
+     * @throws IllegalArgumentException if an option is unknown or its value is missing or malformed
+     */
+    public static SolverOptions parse(String[] args, int fromIdx) {
+        SolverOptions options = new SolverOptions();
+        for (int i = fromIdx; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("missing value for option " + option);
+            String value = args[++i];
+            switch (option) {
+                case "--time-limit":
+                    options.timeLimit = parsePositiveDouble(option, value);
+                    break;
+                case "--stall-time":
+                    options.stallTime = parseNonNegativeDouble(option, value);
+                    break;
+                case "--stall-iterations":
+                    options.stallIterations = parseNonNegativeLong(option, value);
+                    break;
+                case "--target":
+                    options.target = parseNonNegativeDouble(option, value);
+                    break;
+                case "--bound":
+                    options.bound = parsePositiveDouble(option, value);
+                    break;
+                case "--gap":
+                    options.gapPercent = parseNonNegativeDouble(option, value);
+                    break;
+                case "--restart-interval":
+                    options.restartInterval = parsePositiveDouble(option, value);
+                    break;
+                case "--seed":
+                    options.seed = parseLong(option, value);
+                    break;
+                case "--search":
+                    options.ruinAndRecreate = parseSearchMode(option, value);
+                    break;
+                case "--neighborhood-threads":
+                    options.neighborhoodThreads = parsePositiveInt(option, value);
+                    break;
+                case "--portfolio":
+                    options.portfolioThreads = parsePositiveInt(option, value);
+                    break;
+                case "--neighbors":
+                    options.numNeighbors = parseNonNegativeInt(option, value);
+                    break;
+                case "--distance-matrix":
+                    options.distanceMatrixType = parseDistanceMatrixType(option, value);
+                    break;
+                case "--distance-cache":
+                    options.distanceCacheDir = value;
+                    break;
+                case "--construction":
+                    options.constructionType = parseConstructionType(option, value);
+                    break;
+                case "--warm-start":
+                    options.warmStartFile = value;
+                    break;
+                case "--polish-interval":
+                    options.polishInterval = parseNonNegativeDouble(option, value);
+                    break;
+                case "--tabu-tenure":
+                    options.tabuTenure = parseNonNegativeInt(option, value);
+                    break;
+                case "--strategy-selection":
+                    options.adaptiveStrategySelection = parseStrategySelection(option, value);
+                    break;
+                case "--stream":
+                    options.streamFile = value;
+                    break;
+                case "--telemetry":
+                    options.telemetryFile = value;
+                    break;
+                case "--telemetry-interval":
+                    options.telemetryInterval = parsePositiveDouble(option, value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + option);
+            }
+        }
+        if (options.gapPercent > 0 && Double.isNaN(options.bound))
+            throw new IllegalArgumentException("option --gap needs a --bound");
+        return options;
+    }
+
+    /**
+     * @return a one-line notice about the options that have no effect with the search mode (ruin-and-recreate steps
+     * don't evaluate neighborhoods of moves), or null if there are none
+     */
+    public String ignoredOptionsNotice() {
+        if (!ruinAndRecreate)
+            return null;
+        List<String> ignored = new ArrayList<>();
+        if (neighborhoodThreads > 1)
+            ignored.add("--neighborhood-threads");
+        if (adaptiveStrategySelection)
+            ignored.add("--strategy-selection");
+        if (ignored.isEmpty())
+            return null;
+        return "Note: " + String.join(" and ", ignored) + (ignored.size() == 1 ? " has" : " have")
+                + " no effect with --search ruin-recreate";
+    }
+
+    /**
+     * @return the distance at which the search can stop early, because it has reached the target or is within the
+     * gap of the bound (negative infinity if there's no such distance)
+     */
+    public double stoppingDistance() {
+        double boundDistance = Double.isNaN(bound) ? Double.NEGATIVE_INFINITY : bound * (1 + gapPercent / 100);
+        return Math.max(target, boundDistance);
+    }
+
+    private static DistanceMatrix.Type parseDistanceMatrixType(String option, String value) {
+        try {
+            return DistanceMatrix.Type.valueOf(value.toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown value for option " + option + ": " + value);
+        }
+    }
+
+    private static ConstructionHeuristic.Type parseConstructionType(String option, String value) {
+        try {
+            return ConstructionHeuristic.Type.valueOf(value.toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown value for option " + option + ": " + value);
+        }
+    }
+
+    private static long parseLong(String option, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("expected an integer for option " + option + ", got " + value);
+        }
+    }
+
+    private static boolean parseSearchMode(String option, String value) {
+        switch (value) {
+            case "ruin-recreate":
+                return true;
+            case "moves":
+                return false;
+            default:
+                throw new IllegalArgumentException("unknown value for option " + option + ": " + value);
+        }
+    }
+
+    private static boolean parseStrategySelection(String option, String value) {
+        switch (value) {
+            case "uniform":
+                return false;
+            case "adaptive":
+                return true;
+            default:
+                throw new IllegalArgumentException("unknown value for option " + option + ": " + value);
+        }
+    }
+
+    private static double parseDouble(String option, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("expected a number for option " + option + ", got " + value);
+        }
+    }
+
+    private static double parsePositiveDouble(String option, String value) {
+        double parsed = parseDouble(option, value);
+        if (!(parsed > 0) || Double.isInfinite(parsed))
+            throw new IllegalArgumentException("expected a positive number for option " + option + ", got " + value);
+        return parsed;
+    }
+
+    private static double parseNonNegativeDouble(String option, String value) {
+        double parsed = parseDouble(option, value);
+        if (!(parsed >= 0) || Double.isInfinite(parsed))
+            throw new IllegalArgumentException("expected a non-negative number for option " + option + ", got " + value);
+        return parsed;
+    }
+
+    private static long parseNonNegativeLong(String option, String value) {
+        long parsed = parseLong(option, value);
+        if (parsed < 0)
+            throw new IllegalArgumentException("expected a non-negative integer for option " + option + ", got " + value);
+        return parsed;
+    }
+
+    private static int parseNonNegativeInt(String option, String value) {
+        long parsed = parseLong(option, value);
+        if (parsed < 0 || parsed > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("expected a non-negative integer for option " + option + ", got " + value);
+        return (int) parsed;
+    }
+
+    private static int parsePositiveInt(String option, String value) {
+        long parsed = parseLong(option, value);
+        if (parsed < 1 || parsed > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("expected a positive integer for option " + option + ", got " + value);
+        return (int) parsed;
+    }
+}
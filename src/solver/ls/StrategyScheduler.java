@@ -0,0 +1,111 @@
+package solver.ls;
+
+import java.util.Random;
+
+/**
+ * Adaptive (roulette-wheel) choice of which moving strategies propose the moves of each neighborhood, in the style of
+ * adaptive large neighborhood search. The search is split into segments of iterations; at the end of each segment,
+ * every strategy's weight moves towards its share of the new incumbents found per nanosecond spent proposing moves
+ * during the segment, so strategies that pay off on the current instance get more of the proposals.
+ * Only new incumbents are credited: most improvements of the current solution just undo the worsening moves the
+ * tolerance lets through (which mostly credits TwoOpt for repairing what the cross-route strategies perturbed).
+ * Half of the proposals are always spread evenly, so every strategy keeps being tried (and can recover).
+ * Each evaluation task has its own scheduler (with its own random number stream).
+ */
+public class StrategyScheduler {
+
+    private static final int SEGMENT_LENGTH = 100; // iterations between weight updates
+    private static final int TIMING_PERIOD = 16;   // strategies are only timed on one in this many iterations
+    private static final double REACTION = 0.2;    // how far the weights move towards the last segment's results
+    private static final double EXPLORATION = 0.5; // share of the proposals spread evenly between the strategies
+
+    private final int numStrategies;
+    private final Random random;
+    private final double[] weights; // sums to 1
+
+    private final double[] nanosPerProposal; // moving average of the time each strategy takes to propose a move
+    private final long[] segmentProposals;
+    private final long[] segmentNewIncumbents;
+    private final double[] rates; // scratch space for updateWeights
+    private int iteration = 0;
+
+    public StrategyScheduler(int numStrategies, long seed) {
+        this.numStrategies = numStrategies;
+        this.random = new Random(seed);
+        this.weights = new double[numStrategies];
+        this.nanosPerProposal = new double[numStrategies];
+        this.segmentProposals = new long[numStrategies];
+        this.segmentNewIncumbents = new long[numStrategies];
+        this.rates = new double[numStrategies];
+        for (int s = 0; s < numStrategies; s++) {
+            weights[s] = 1.0 / numStrategies;
+            nanosPerProposal[s] = 1.0; // until the strategy has been timed
+        }
+    }
+
+    /**
+     * Starts an iteration: splits its proposals between the strategies
+     *
+     * @param proposalsPerStrategy: filled in with the number of moves each strategy should propose
+     */
+    public void allocate(int numProposals, int[] proposalsPerStrategy) {
+        if (iteration > 0 && iteration % SEGMENT_LENGTH == 0)
+            updateWeights();
+        iteration++;
+
+        for (int s = 0; s < numStrategies; s++) {
+            proposalsPerStrategy[s] = 0;
+        }
+        for (int p = 0; p < numProposals; p++) {
+            double r = random.nextDouble();
+            int s = 0;
+            while (s < numStrategies - 1 && (r -= probability(s)) >= 0) {
+                s++;
+            }
+            proposalsPerStrategy[s]++;
+        }
+        for (int s = 0; s < numStrategies; s++) {
+            segmentProposals[s] += proposalsPerStrategy[s];
+        }
+    }
+
+    /**
+     * @return whether the strategies should be timed in this iteration
+     */
+    public boolean isTimedIteration() {
+        return iteration % TIMING_PERIOD == 1;
+    }
+
+    public void recordTime(int strategyIdx, int numProposals, long nanos) {
+        if (numProposals > 0)
+            nanosPerProposal[strategyIdx] = 0.8 * nanosPerProposal[strategyIdx] + 0.2 * ((double) nanos / numProposals);
+    }
+
+    /**
+     * Credits a strategy whose move (accepted by the search) made the current solution the new incumbent
+     */
+    public void recordNewIncumbent(int strategyIdx) {
+        segmentNewIncumbents[strategyIdx]++;
+    }
+
+    private double probability(int strategyIdx) {
+        return EXPLORATION / numStrategies + (1 - EXPLORATION) * weights[strategyIdx];
+    }
+
+    private void updateWeights() {
+        double totalRate = 0;
+        for (int s = 0; s < numStrategies; s++) {
+            // new incumbents per nanosecond spent on the strategy during the segment
+            rates[s] = segmentNewIncumbents[s] / (Math.max(1, segmentProposals[s]) * nanosPerProposal[s]);
+            totalRate += rates[s];
+        }
+
+        for (int s = 0; s < numStrategies; s++) {
+            // with no new incumbents at all, drift back towards an even split
+            double target = totalRate > 0 ? rates[s] / totalRate : 1.0 / numStrategies;
+            weights[s] = (1 - REACTION) * weights[s] + REACTION * target;
+            segmentProposals[s] = 0;
+            segmentNewIncumbents[s] = 0;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package solver.ls;
+
+import java.util.Arrays;
+
+/**
+ * Short-term memory of the solutions a search trajectory has visited, by their hash (see Solution.solutionHash), so
+ * moves back to one of them can be rejected: without it, the tolerance lets the search step back and forth between
+ * the same few solutions (e.g. moving a customer to another route and straight back).
+ * A solution stays tabu until the trajectory has visited tenure more solutions. The table is fixed-size and
+ * direct-mapped (a solution can only be stored in one slot, which it takes over from whichever solution was there
+ * before), so it never allocates; with 4 slots per tabu solution, few are forgotten early.
+ */
+public class TabuList {
+
+    private final int tenure;
+    private final long[] hashes;
+    private final long[] visitTimes; // when the solution in each slot was visited (in visits)
+    private final int mask;
+    private long numVisits = 0;
+
+    public TabuList(int tenure) {
+        this.tenure = tenure;
+        int size = Integer.highestOneBit(Math.max(4 * tenure - 1, 1)) << 1; // the next power of 2 from 4 * tenure
+        this.hashes = new long[size];
+        this.visitTimes = new long[size];
+        this.mask = size - 1;
+        Arrays.fill(visitTimes, -tenure - 1); // every slot starts out expired
+    }
+
+    private int slot(long solutionHash) {
+        return (int) ((solutionHash * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+
+    /**
+     * Records a visit to the solution with this hash (which makes it tabu)
+     */
+    public void visit(long solutionHash) {
+        int slot = slot(solutionHash);
+        hashes[slot] = solutionHash;
+        visitTimes[slot] = numVisits++;
+    }
+
+    /**
+     * @return whether the solution with this hash is tabu (it was visited within the last tenure visits)
+     */
+    public boolean isTabu(long solutionHash) {
+        int slot = slot(solutionHash);
+        return hashes[slot] == solutionHash && numVisits - visitTimes[slot] <= tenure;
+    }
+}
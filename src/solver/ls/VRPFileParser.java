@@ -0,0 +1,160 @@
+package solver.ls;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the whitespace-separated numbers of a .vrp instance file. The file is memory-mapped and numbers are
+ * parsed straight from its bytes (rather than through java.util.Scanner, which matches every token against regular
+ * expressions). Malformed or truncated files are reported with an IOException naming the file and line.
+ */
+public class VRPFileParser {
+
+    // powers of 10 that are exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private final String fileName;
+    private final MappedByteBuffer buffer;
+    private int line = 1;
+
+    public VRPFileParser(String fileName) throws IOException {
+        this.fileName = fileName;
+        Path path = Paths.get(fileName);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException(fileName + ": file is too large to parse");
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            throw new IOException(fileName + ": no such file", e);
+        }
+    }
+
+    public int nextInt() throws IOException {
+        skipWhitespace();
+        int start = buffer.position();
+        boolean negative = consumeSign();
+
+        long value = 0;
+        int numDigits = 0;
+        while (buffer.hasRemaining() && isDigit(peek())) {
+            value = value * 10 + (buffer.get() - '0');
+            numDigits++;
+            if (value > (long) Integer.MAX_VALUE + 1)
+                throw error("integer out of range", start);
+        }
+        if (numDigits == 0 || (buffer.hasRemaining() && !isWhitespace(peek())))
+            throw error("expected an integer", start);
+
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE)
+            throw error("integer out of range", start);
+        return (int) value;
+    }
+
+    public double nextDouble() throws IOException {
+        skipWhitespace();
+        int start = buffer.position();
+        boolean negative = consumeSign();
+
+        long mantissa = 0;
+        int numDigits = 0;
+        int numFractionDigits = 0;
+        boolean exact = true; // whether mantissa / 10^numFractionDigits gives the correctly rounded value
+        while (buffer.hasRemaining() && isDigit(peek())) {
+            exact &= accumulate(mantissa);
+            mantissa = mantissa * 10 + (buffer.get() - '0');
+            numDigits++;
+        }
+        if (buffer.hasRemaining() && peek() == '.') {
+            buffer.get();
+            while (buffer.hasRemaining() && isDigit(peek())) {
+                exact &= accumulate(mantissa);
+                mantissa = mantissa * 10 + (buffer.get() - '0');
+                numDigits++;
+                numFractionDigits++;
+            }
+        }
+        if (numDigits == 0)
+            throw error("expected a number", start);
+
+        if (buffer.hasRemaining() && (peek() == 'e' || peek() == 'E')) {
+            exact = false; // rare in instance files, so leave exponents to Double.parseDouble
+            buffer.get();
+            consumeSign();
+            while (buffer.hasRemaining() && isDigit(peek())) {
+                buffer.get();
+            }
+        }
+        if (buffer.hasRemaining() && !isWhitespace(peek()))
+            throw error("expected a number", start);
+
+        if (exact && mantissa <= MAX_EXACT_MANTISSA && numFractionDigits < POWERS_OF_TEN.length) {
+            // both operands are exact, so the division is correctly rounded (just like Double.parseDouble)
+            double value = mantissa / POWERS_OF_TEN[numFractionDigits];
+            return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(token(start));
+        } catch (NumberFormatException e) {
+            throw error("expected a number", start);
+        }
+    }
+
+    // whether another digit can be appended to the mantissa without overflowing it
+    private static boolean accumulate(long mantissa) {
+        return mantissa < Long.MAX_VALUE / 10 - 1;
+    }
+
+    private boolean consumeSign() {
+        if (buffer.hasRemaining() && (peek() == '-' || peek() == '+'))
+            return buffer.get() == '-';
+        return false;
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (buffer.hasRemaining() && isWhitespace(peek())) {
+            if (buffer.get() == '\n')
+                line++;
+        }
+        if (!buffer.hasRemaining())
+            throw new IOException(fileName + ":" + line + ": unexpected end of file");
+    }
+
+    private byte peek() {
+        return buffer.get(buffer.position());
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private String token(int start) {
+        int end = start;
+        while (end < buffer.limit() && !isWhitespace(buffer.get(end))) {
+            end++;
+        }
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private IOException error(String message, int tokenStart) {
+        return new IOException(fileName + ":" + line + ": " + message + ", got \"" + token(tokenStart) + "\"");
+    }
+}
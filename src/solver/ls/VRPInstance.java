@@ -1,9 +1,12 @@
 package solver.ls;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.List;
-import java.util.Scanner;
+import solver.ls.DistanceMatrix.DistanceMatrix;
+import solver.ls.DistanceMatrix.MappedDistanceMatrix;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 public class VRPInstance {
     // VRP Input Parameters
@@ -13,25 +16,41 @@ public class VRPInstance {
     public int[] demandOfCustomer;        // the demand of each customer
     double[] xCoordOfCustomer;    // the x coordinate of each customer
     double[] yCoordOfCustomer;    // the y coordinate of each customer
-    public double[][] distance;        // distances between all customers (including warehouse)
+    public DistanceMatrix distance;    // distances between all customers (including warehouse)
+    Path distanceCacheDir;    // null unless distances are cached in files shared between runs
+    String distanceCacheKey;    // the instance's key in the distance cache (null unless its matrix came from there)
+    private volatile NeighborLists nearestCustomers; // see getNearestCustomers (null until first needed, or once customers change)
 
     Timer watch;
 
 
-    public VRPInstance(String fileName, Timer watch) {
+    public VRPInstance(String fileName, Timer watch) throws IOException {
+        this(fileName, watch, DistanceMatrix.Type.AUTO);
+    }
+
+    /**
+     * @throws IOException if the instance file can't be read, or isn't a well-formed instance
+     */
+    public VRPInstance(String fileName, Timer watch, DistanceMatrix.Type distanceMatrixType) throws IOException {
+        this(fileName, watch, distanceMatrixType, null);
+    }
+
+    /**
+     * @param distanceCacheDir: the directory the distance matrix is cached in (see MappedDistanceMatrix), or null to
+     *                          compute it
+     * @throws IOException if the instance file can't be read, or isn't a well-formed instance
+     */
+    public VRPInstance(String fileName, Timer watch, DistanceMatrix.Type distanceMatrixType, String distanceCacheDir) throws IOException {
         this.watch = watch;
+        this.distanceCacheDir = distanceCacheDir == null ? null : Paths.get(distanceCacheDir);
 
-        Scanner read = null;
-        try {
-            read = new Scanner(new File(fileName));
-        } catch (FileNotFoundException e) {
-            System.out.println("Error: in VRPInstance() " + fileName + "\n" + e.getMessage());
-            System.exit(-1);
-        }
+        VRPFileParser read = new VRPFileParser(fileName);
 
         numCustomers = read.nextInt();
         numVehicles = read.nextInt();
         vehicleCapacity = read.nextInt();
+        if (numCustomers < 1 || numVehicles < 1 || vehicleCapacity < 0)
+            throw new IOException(fileName + ": invalid instance header " + numCustomers + " " + numVehicles + " " + vehicleCapacity);
 
         System.out.println("Number of customers: " + numCustomers);
         System.out.println("Number of vehicles: " + numVehicles);
@@ -47,7 +66,7 @@ public class VRPInstance {
             yCoordOfCustomer[i] = read.nextDouble();
         }
 
-        this.generateDistanceMatrix();
+        this.generateDistanceMatrix(distanceMatrixType);
     }
 
     public int getNumCustomers() {
@@ -58,49 +77,115 @@ public class VRPInstance {
         return vehicleCapacity;
     }
 
-    private double distance(double x1, double y1, double x2, double y2) {
-        return Math.sqrt(Math.pow(x1 - x2, 2) + Math.pow(y1 - y2, 2));
+    public int getNumVehicles() {
+        return numVehicles;
     }
 
-    private void generateDistanceMatrix() {
-        this.distance = new double[numCustomers][numCustomers];
-        for (int i = 0; i < numCustomers; i++) {
-            for (int j = 0; j < numCustomers; j++) {
-                if (i == j) {
-                    distance[i][j] = 0;
-                    continue;
+    public double getXCoordOfCustomer(int customer) {
+        return xCoordOfCustomer[customer];
+    }
+
+    public double getYCoordOfCustomer(int customer) {
+        return yCoordOfCustomer[customer];
+    }
+
+    /**
+     * @return each customer's numNeighbors nearest customers (read from the distance cache, if there is one). They're
+     * only built once (until customers are added or removed), and shared by every search trajectory
+     */
+    public NeighborLists getNearestCustomers(int numNeighbors) {
+        NeighborLists lists = nearestCustomers;
+        if (lists == null || lists.requestedNeighbors() != numNeighbors) {
+            synchronized (this) {
+                // the other trajectories wait for the first one to build the lists, rather than each building its own
+                lists = nearestCustomers;
+                if (lists == null || lists.requestedNeighbors() != numNeighbors) {
+                    lists = NeighborLists.create(this, numNeighbors);
+                    nearestCustomers = lists;
                 }
-                double x1 = xCoordOfCustomer[i];
-                double y1 = yCoordOfCustomer[i];
-                double x2 = xCoordOfCustomer[j];
-                double y2 = yCoordOfCustomer[j];
-                double dist = this.distance(x1, y1, x2, y2);
-                this.distance[i][j] = dist;
             }
         }
+        return lists;
+    }
+
+    private void generateDistanceMatrix(DistanceMatrix.Type distanceMatrixType) {
+        if (distanceCacheDir != null) {
+            try {
+                MappedDistanceMatrix mapped = MappedDistanceMatrix.open(distanceCacheDir, xCoordOfCustomer, yCoordOfCustomer);
+                this.distance = mapped;
+                this.distanceCacheKey = mapped.getKey();
+                return;
+            } catch (IOException | IllegalArgumentException e) {
+                // IllegalArgumentException if the instance is too large for a triangular matrix
+                System.out.println("Error: couldn't use the distance cache in " + distanceCacheDir + " (" + e.getMessage()
+                        + "), computing the distance matrix instead");
+            }
+        }
+        this.distance = DistanceMatrix.create(distanceMatrixType, xCoordOfCustomer, yCoordOfCustomer);
+    }
+
+    /**
+     * Adds a customer to the instance (only its distances to the other locations are computed)
+     *
+     * @return the new customer's index
+     */
+    int addCustomer(int demand, double xCoord, double yCoord) {
+        int customer = numCustomers++;
+        demandOfCustomer = Arrays.copyOf(demandOfCustomer, numCustomers);
+        xCoordOfCustomer = Arrays.copyOf(xCoordOfCustomer, numCustomers);
+        yCoordOfCustomer = Arrays.copyOf(yCoordOfCustomer, numCustomers);
+        demandOfCustomer[customer] = demand;
+        xCoordOfCustomer[customer] = xCoord;
+        yCoordOfCustomer[customer] = yCoord;
+        distance.update(xCoordOfCustomer, yCoordOfCustomer, customer);
+        distanceCacheKey = null; // the cached files are no longer the instance's
+        nearestCustomers = null;
+        return customer;
+    }
+
+    /**
+     * Removes a customer from the instance. Customers stay numbered 1 ... numCustomers - 1, so the last customer
+     * takes over the removed customer's index (and only its distances are recomputed)
+     */
+    void removeCustomer(int customer) {
+        int last = --numCustomers;
+        demandOfCustomer[customer] = demandOfCustomer[last];
+        xCoordOfCustomer[customer] = xCoordOfCustomer[last];
+        yCoordOfCustomer[customer] = yCoordOfCustomer[last];
+        demandOfCustomer = Arrays.copyOf(demandOfCustomer, numCustomers);
+        xCoordOfCustomer = Arrays.copyOf(xCoordOfCustomer, numCustomers);
+        yCoordOfCustomer = Arrays.copyOf(yCoordOfCustomer, numCustomers);
+        if (customer != last)
+            distance.update(xCoordOfCustomer, yCoordOfCustomer, customer);
+        distanceCacheKey = null; // the cached files are no longer the instance's
+        nearestCustomers = null;
+    }
+
+    void setDemand(int customer, int demand) {
+        demandOfCustomer[customer] = demand;
     }
 
     public boolean isSolutionFeasible(Solution solution) {
         // there should be some route for each vehicle
-        if (solution.routes.size() != numVehicles)
+        if (solution.numRoutes() != numVehicles)
             return false;
 
         // each route should begin and end at the depot (and therefore, each route should have at least 2 locations)
-        for (List<Integer> route : solution.routes) {
-            if (route.size() < 2)
+        for (int r = 0; r < numVehicles; r++) {
+            if (solution.routeSize(r) < 2)
                 return false;
-            if (route.get(0) != 0 || route.get(route.size() - 1) != 0)
+            if (solution.tour[solution.routeStart[r]] != 0 || solution.tour[solution.routeStart[r + 1] - 1] != 0)
                 return false;
         }
 
         // every customer is visited exactly once
         int[] visitedCustomers = new int[numCustomers]; // use array for membership tracking and checking -- faster than hashing with a set
-        for (List<Integer> route : solution.routes) {
-            for (int customer : route) {
-                if (customer != 0 && visitedCustomers[customer] == 1) // customer was visited more than once
-                    return false;
-                visitedCustomers[customer] = 1;
-            }
+        int tourLength = solution.routeStart[numVehicles];
+        for (int tourIdx = 0; tourIdx < tourLength; tourIdx++) {
+            int customer = solution.tour[tourIdx];
+            if (customer != 0 && visitedCustomers[customer] == 1) // customer was visited more than once
+                return false;
+            visitedCustomers[customer] = 1;
         }
         for (int customer = 1; customer < numCustomers; customer++) {
             if (visitedCustomers[customer] == 0) // customer was not visited by any vehicle
@@ -108,10 +193,10 @@ public class VRPInstance {
         }
 
         // no vehicle should exceed its capacity
-        for (List<Integer> route : solution.routes) {
+        for (int r = 0; r < numVehicles; r++) {
             int capacityUsed = 0;
-            for (int customer : route) {
-                capacityUsed += demandOfCustomer[customer];
+            for (int tourIdx = solution.routeStart[r]; tourIdx < solution.routeStart[r + 1]; tourIdx++) {
+                capacityUsed += demandOfCustomer[solution.tour[tourIdx]];
                 if (capacityUsed > vehicleCapacity)
                     return false;
             }
@@ -120,14 +205,14 @@ public class VRPInstance {
         return true;
     }
 
+    /**
+     * Computes the total distance of a solution from scratch (refreshing its cached route loads and lengths)
+     */
     public double solutionTotalDistance(Solution solution) {
+        solution.updateRouteCaches(this);
         double totalDistance = 0.0;
-        for (List<Integer> route : solution.routes) {
-            for (int customerIdx = 1; customerIdx < route.size(); customerIdx++) {
-                int prevCustomer = route.get(customerIdx - 1);
-                int thisCustomer = route.get(customerIdx);
-                totalDistance += distance[prevCustomer][thisCustomer];
-            }
+        for (int r = 0; r < solution.numRoutes(); r++) {
+            totalDistance += solution.routeLength[r];
         }
         solution.totalDistance = totalDistance;
         return totalDistance;
@@ -1,95 +1,98 @@
 package solver.ls;
 
-import ilog.concert.IloException;
-import ilog.cp.*;
-import ilog.concert.*;
-import solver.ls.MovingStrategy.*;
+import solver.ls.ConstructionHeuristic.ConstructionHeuristic;
+import solver.ls.ConstructionHeuristic.WarmStartConstruction;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class VRPLocalSearch extends VRPInstance {
 
-    IloCP cp;
-    IloIntVar[][] customersServed; // (numVehicles, numCustomers - 1) --> (i, j): if vehicle i serves customer j
+    SharedIncumbent incumbent;
+    final double INCUMBENT_UPDATE_TIMEOUT; // restart from the incumbent after this many seconds without a new one
 
-    Solution incumbentSolution;
-    private double lastIncumbentUpdateTime = 0.0;
-    private double INCUMBENT_UPDATE_TIMEOUT = 10.0; // 10 seconds
+    final double TIMEOUT; // stop running search after this many seconds
 
-    final double TIMEOUT = 295.0; // stop running search after 295 seconds
+    final SolverOptions options;
 
-    /*
-     * if this flag is true, we get lists of moves from moving strategies.
-     * if it is false, we get single moves from the moving strategies in singleMovingStrategies
-     */
-    private boolean multipleMovesNeighborhood = false;
-
-    private List<MovingStrategy> singleMovingStrategies;
-
-    public VRPLocalSearch(String filename, Timer watch) {
-        super(filename, watch);
-        this.singleMovingStrategies = new ArrayList<>(List.of(
-                new TwoOpt(),
-                new CrossRouteCustomerMove(),
-                new RandomCustomerMovement(),
-                new CrossRouteCustomerExchange()
-        ));
-    }
-
-    private Solution constructSolutionFromCPVars() {
-        List<List<Integer>> routes = new ArrayList<>();
-        for (int i = 0; i < numVehicles; i++) {
-            List<Integer> vehicleRoute = new ArrayList<>();
-            vehicleRoute.add(0);
-            for (int j = 1; j < numCustomers; j++) {
-                int isCustomerServed = (int) cp.getValue(customersServed[i][j]);
-                if (isCustomerServed == 1) {
-                    vehicleRoute.add(j);
-                }
-            }
-            vehicleRoute.add(0);
-            routes.add(vehicleRoute);
-        }
-        return new Solution(routes);
-    }
+    public NeighborLists neighborLists; // null unless granular neighborhoods are enabled
+    private boolean neighborListsStale = false; // customers were added or removed since the lists were built
+    public SearchTelemetry telemetry; // null unless telemetry is enabled
+    final RouteCache routeCache = new RouteCache(); // routes already optimized by an IntraRouteOptimizer
 
-    private Solution constructInitialSolution() {
-        try {
-            cp = new IloCP();
+    private final List<IncumbentListener> incumbentListeners = new CopyOnWriteArrayList<>();
+    private double lastPublishedDistance; // distance of the last incumbent passed to the listeners
 
-            // routes array
-            customersServed = new IloIntVar[numVehicles][numCustomers];
-            for (int i = 0; i < numVehicles; i++) {
-                customersServed[i] = cp.intVarArray(numCustomers, 0, 1);
-            }
+    // early termination: the search stops as soon as a stopping rule is met (see isSearchOver)
+    private final double stoppingDistance;
+    private volatile double lastIncumbentTime;
+    private volatile boolean stopRequested;
 
-            // every column should sum to 1 -- each customer is visited exactly once
-            for (int j = 1; j < numCustomers; j++) {
-                IloNumExpr sum = cp.constant(0);
-                for (int i = 0; i < numVehicles; i++) {
-                    sum = cp.sum(sum, customersServed[i][j]);
-                }
+    final String instanceName;
 
-                cp.addEq(sum, 1);
-            }
+    public VRPLocalSearch(String filename, Timer watch) throws IOException {
+        this(filename, watch, new SolverOptions());
+    }
 
-            // no vehicle exceeds its capacity
-            for (int i = 0; i < numVehicles; i++) {
-                cp.addLe(cp.scalProd(customersServed[i], demandOfCustomer), vehicleCapacity);
-            }
+    public VRPLocalSearch(String filename, Timer watch, SolverOptions options) throws IOException {
+        super(filename, watch, options.distanceMatrixType, options.distanceCacheDir);
+        this.options = options;
+        this.TIMEOUT = options.timeLimit;
+        this.INCUMBENT_UPDATE_TIMEOUT = options.restartInterval;
+        this.stoppingDistance = options.stoppingDistance();
+        this.instanceName = Paths.get(filename).getFileName().toString();
+        if (options.telemetryFile != null)
+            this.telemetry = new SearchTelemetry();
+        if (options.numNeighbors > 0 && numCustomers > 2)
+            this.neighborLists = NeighborLists.create(this, options.numNeighbors);
+    }
 
-            if (cp.solve()) {
-                incumbentSolution = constructSolutionFromCPVars();
-                lastIncumbentUpdateTime = watch.getTime();
-                return incumbentSolution;
-            } else {
-                System.out.println("Problem is infeasible!");
-                return null;
-            }
+    @Override
+    int addCustomer(int demand, double xCoord, double yCoord) {
+        neighborListsStale = true;
+        return super.addCustomer(demand, xCoord, yCoord);
+    }
+
+    @Override
+    void removeCustomer(int customer) {
+        neighborListsStale = true;
+        routeCache.clear(); // the last customer takes over the removed one's index, so cached routes may not be what they were
+        super.removeCustomer(customer);
+    }
+
+    /**
+     * Rebuilds the neighbor lists if customers were added or removed since they were built (which is only done
+     * right before searching, so a batch of changes only rebuilds them once)
+     */
+    void refreshNeighborLists() {
+        if (!neighborListsStale)
+            return;
+        neighborListsStale = false;
+        if (options.numNeighbors > 0)
+            this.neighborLists = numCustomers > 2 ? new NeighborLists(this, options.numNeighbors) : null;
+    }
 
-        } catch (IloException e) {
-            System.out.println("Error: " + e);
+    /**
+     * @return a feasible solution built by the configured construction heuristic (or repaired from the warm start
+     * solution, if there is one), or null if it couldn't build one
+     */
+    Solution constructInitialSolution() {
+        try {
+            ConstructionHeuristic heuristic = ConstructionHeuristic.create(options.constructionType);
+            if (options.warmStartFile != null)
+                heuristic = new WarmStartConstruction(options.warmStartFile, instanceName, heuristic);
+            return heuristic.construct(this);
+        } catch (IllegalStateException e) {
+            System.out.println("Error: " + e.getMessage());
             return null;
         }
     }
@@ -101,76 +104,165 @@ public class VRPLocalSearch extends VRPInstance {
      * @return a Solution: the most optimal feasible solution found via local search
      */
     public Solution localSearch() {
-        // construct initial solution
-        Solution currentSolution = constructInitialSolution();
-        if (currentSolution == null) {
+        refreshNeighborLists();
+
+        // construct initial solution (its total distance is already computed)
+        Solution initialSolution = constructInitialSolution();
+        if (initialSolution == null) {
             System.out.println("Error: problem is infeasible!");
             return null;
         }
 
-        solutionTotalDistance(currentSolution); // compute solution total distance (stored in totalDistance field)
-
-        double tolerance = Math.pow(10, Math.min(3, Double.toString(incumbentSolution.totalDistance).length() - 1));
-
-        // start moving around
-        while (watch.getTime() < TIMEOUT) {
-            if (tolerance < 10)
-                multipleMovesNeighborhood = true;
-            if (watch.getTime() - lastIncumbentUpdateTime >= INCUMBENT_UPDATE_TIMEOUT) {
-                currentSolution = incumbentSolution;
-                lastIncumbentUpdateTime = watch.getTime();
-                tolerance = Math.max(tolerance / 2, 0.5);
-                this.singleMovingStrategies = new ArrayList<>(List.of(
-                        new TwoOpt(),
-                        new CrossRouteCustomerMove(),
-                        new RandomCustomerMovement(),
-                        new CrossRouteCustomerExchange()
-                ));
+        incumbent = new SharedIncumbent(initialSolution);
+        stopRequested = false;
+        IncumbentStreamWriter streamWriter = openIncumbentStream();
+        lastPublishedDistance = Double.POSITIVE_INFINITY;
+        recordNewIncumbent(incumbent.get(), -1);
+
+        ScheduledExecutorService telemetryExecutor = startTelemetrySnapshots();
+        try {
+            if (options.portfolioThreads == 1)
+                new SearchTrajectory(this, incumbent, 0, initialSolution).run();
+            else
+                runPortfolio(initialSolution);
+        } finally {
+            if (telemetryExecutor != null) {
+                telemetryExecutor.shutdownNow();
+                writeTelemetry();
+            }
+            if (streamWriter != null) {
+                removeIncumbentListener(streamWriter);
+                streamWriter.close();
             }
+        }
+
+        return incumbent.get();
+    }
+
+    /**
+     * Registers a listener to be notified of every new incumbent found by localSearch (starting with the initial
+     * solution)
+     */
+    public void addIncumbentListener(IncumbentListener listener) {
+        incumbentListeners.add(listener);
+    }
+
+    public void removeIncumbentListener(IncumbentListener listener) {
+        incumbentListeners.remove(listener);
+    }
+
+    /**
+     * Records a new incumbent in the telemetry (if it is enabled) and passes it on to the listeners
+     *
+     * @param solution: the published incumbent (which is never modified)
+     * @param trajectoryIdx: the trajectory that found the new incumbent (-1 for the initial solution)
+     */
+    void recordNewIncumbent(Solution solution, int trajectoryIdx) {
+        double time = watch.getTime();
+        lastIncumbentTime = time;
+        if (solution.totalDistance <= stoppingDistance)
+            stopRequested = true;
+        if (telemetry != null)
+            telemetry.recordIncumbent(time, solution.totalDistance, trajectoryIdx);
+        if (incumbentListeners.isEmpty())
+            return;
 
-            Solution newSolution = move(currentSolution);
-            if (newSolution.isFeasible && newSolution.totalDistance < currentSolution.totalDistance + tolerance) {
-                if (newSolution.totalDistance < incumbentSolution.totalDistance) {
-                    incumbentSolution = newSolution;
-                    lastIncumbentUpdateTime = watch.getTime();
-                }
-                currentSolution = newSolution;
+        // trajectories can find new incumbents at the same time: listeners get them one at a time, and only ever
+        // see improvements (an incumbent already beaten by the time its trajectory gets here is skipped)
+        synchronized (incumbentListeners) {
+            if (solution.totalDistance >= lastPublishedDistance)
+                return;
+            lastPublishedDistance = solution.totalDistance;
+            for (IncumbentListener listener : incumbentListeners) {
+                listener.onNewIncumbent(solution, time, trajectoryIdx);
             }
         }
+    }
 
-        return incumbentSolution;
+    /**
+     * @return whether the search should stop: its time is up, the incumbent has reached the target (or is within
+     * the gap of the bound), it hasn't improved for the stall time, or a trajectory asked to stop
+     */
+    boolean isSearchOver() {
+        if (stopRequested)
+            return true;
+        double time = watch.getTime();
+        return time >= TIMEOUT || (options.stallTime > 0 && time - lastIncumbentTime >= options.stallTime);
+    }
+
+    /**
+     * Makes every trajectory stop searching (after its current iteration)
+     */
+    void requestStop() {
+        stopRequested = true;
     }
 
     /**
-     * Moves within the solution space
-     * @return new solution reached (after move)
+     * @return the writer streaming new incumbents (already registered as a listener), or null if streaming isn't
+     * enabled (or the stream couldn't be opened)
      */
-    private Solution move(Solution currentSolution) {
-        List<Solution> neighborhood = new ArrayList<>();
+    private IncumbentStreamWriter openIncumbentStream() {
+        if (options.streamFile == null)
+            return null;
+        try {
+            IncumbentStreamWriter streamWriter = new IncumbentStreamWriter(options.streamFile, instanceName);
+            addIncumbentListener(streamWriter);
+            return streamWriter;
+        } catch (IOException e) {
+            System.out.println("Error: couldn't stream solutions to " + options.streamFile + ": " + e.getMessage());
+            return null;
+        }
+    }
 
-        if (multipleMovesNeighborhood) {
-            // based on moving strategy, get neighborhood
-            for (MovingStrategy strategy : this.singleMovingStrategies) {
-                neighborhood.addAll(strategy.getNeighborhood(currentSolution, this, 10));
+    /**
+     * Portfolio mode: independent trajectories search concurrently, sharing only the incumbent
+     */
+    private void runPortfolio(Solution initialSolution) {
+        ExecutorService portfolioExecutor = Executors.newFixedThreadPool(options.portfolioThreads, runnable -> {
+            Thread thread = new Thread(runnable, "search-trajectory");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> trajectories = new ArrayList<>();
+            for (int i = 0; i < options.portfolioThreads; i++) {
+                trajectories.add(portfolioExecutor.submit(new SearchTrajectory(this, incumbent, i, initialSolution)));
             }
-        } else {
-            for (MovingStrategy strategy : this.singleMovingStrategies) {
-                neighborhood.add(strategy.getSingleNeighbor(currentSolution, this));
+            for (Future<?> trajectory : trajectories) {
+                trajectory.get();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error: search trajectory failed", e.getCause());
+        } finally {
+            portfolioExecutor.shutdownNow();
         }
+    }
 
-        Solution bestNeighbor = null;
-        for (Solution neighbor : neighborhood) {
-            if (!neighbor.isFeasible)
-                continue;
-            if (bestNeighbor == null || neighbor.totalDistance < bestNeighbor.totalDistance)
-                bestNeighbor = neighbor;
-        }
+    /**
+     * @return the executor taking periodic telemetry snapshots, or null if telemetry isn't enabled
+     */
+    private ScheduledExecutorService startTelemetrySnapshots() {
+        if (telemetry == null)
+            return null;
+        ScheduledExecutorService telemetryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "telemetry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = Math.max(1, (long) (options.telemetryInterval * 1000));
+        telemetryExecutor.scheduleAtFixedRate(() -> telemetry.snapshot(watch.getTime(), incumbent.getTotalDistance()),
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return telemetryExecutor;
+    }
 
-        if (bestNeighbor == null) {
-            System.out.println("Couldn't move: no feasible neighbors!");
-            return incumbentSolution;
+    private void writeTelemetry() {
+        telemetry.snapshot(watch.getTime(), incumbent.getTotalDistance()); // final totals
+        try {
+            telemetry.write(options.telemetryFile, instanceName);
+        } catch (IOException e) {
+            System.out.println("Error: couldn't write telemetry to " + options.telemetryFile + ": " + e.getMessage());
         }
-        return bestNeighbor;
     }
 }